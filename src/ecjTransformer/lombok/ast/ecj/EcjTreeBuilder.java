@@ -259,7 +259,11 @@ public class EcjTreeBuilder {
 		this(rawInput, createDefaultProblemReporter(options), createSilentProblemReporter(options), new CompilationResult(name.toCharArray(), 0, 0, 0));
 	}
 	
-	private static ProblemReporter createDefaultProblemReporter(CompilerOptions options) {
+	/**
+	 * Creates the problem reporter used by {@link #EcjTreeBuilder(lombok.ast.grammar.Source, CompilerOptions)}. A reporter can be shared by
+	 * many builders, as long as they are not used concurrently.
+	 */
+	public static ProblemReporter createDefaultProblemReporter(CompilerOptions options) {
 		return new ProblemReporter(new IErrorHandlingPolicy() {
 			public boolean proceedOnErrors() {
 				return true;
@@ -271,7 +275,10 @@ public class EcjTreeBuilder {
 		}, options, new DefaultProblemFactory(Locale.ENGLISH));
 	}
 	
-	private static ProblemReporter createSilentProblemReporter(CompilerOptions options) {
+	/**
+	 * Creates a problem reporter that discards all problems; this is the 'silent' reporter as used by {@link #EcjTreeBuilder(lombok.ast.grammar.Source, CompilerOptions)}.
+	 */
+	public static ProblemReporter createSilentProblemReporter(CompilerOptions options) {
 		return new ProblemReporter(new IErrorHandlingPolicy() {
 			public boolean proceedOnErrors() {
 				return true;
@@ -164,7 +164,11 @@ public class JcTreeBuilder {
 		this(null, createNewContext());
 	}
 	
-	private static Context createNewContext() {
+	/**
+	 * Creates a javac context suitable for {@link #JcTreeBuilder(Source, Context)}. Setting one up is relatively expensive; a context can be
+	 * reused for any number of builders, as long as they are not used concurrently.
+	 */
+	public static Context createNewContext() {
 		Context c = new Context();
 		// Older javacs such as the 1.6 of apple has DefaultFileManager. Newer ones have JavacFileManager.
 		// As javac6 might be on the classpath, JavacFileManager will probably exist but its initialization will fail.
@@ -41,6 +41,7 @@ abstract class AbstractNode implements Node {
 	private Map<String, Position> conversionPositions;
 	private Map<MessageKey, Message> messagesMap;
 	private List<Message> messages;
+	private ScopeIndex scopeIndex;
 	
 	@Override public boolean isGenerated() {
 		return position.getGeneratedBy() != null;
@@ -77,6 +78,9 @@ abstract class AbstractNode implements Node {
 	protected AbstractNode adopt(AbstractNode child) throws IllegalStateException {
 		child.ensureParentless();
 		child.parent = this;
+		/* The child's index (from when it was a root itself) would be stale by the time the child becomes a root again. */
+		child.scopeIndex = null;
+		invalidateTreeCaches();
 		return child;
 	}
 	
@@ -101,6 +105,17 @@ abstract class AbstractNode implements Node {
 	protected void disown(AbstractNode child) throws IllegalStateException {
 		ensureParentage(child);
 		child.parent = null;
+		child.scopeIndex = null;
+		invalidateTreeCaches();
+	}
+	
+	/**
+	 * Drops any caches held by the root of the tree this node is part of. Must be called whenever this node, or the set of children it has, changes.
+	 */
+	protected void invalidateTreeCaches() {
+		AbstractNode root = this;
+		while (root.parent instanceof AbstractNode) root = (AbstractNode) root.parent;
+		root.scopeIndex = null;
 	}
 	
 	/**
@@ -140,6 +155,14 @@ abstract class AbstractNode implements Node {
 		return false;
 	}
 	
+	ScopeIndex getScopeIndex() {
+		return scopeIndex;
+	}
+	
+	void setScopeIndex(ScopeIndex scopeIndex) {
+		this.scopeIndex = scopeIndex;
+	}
+	
 	void addDanglingNode(Node dangling) {
 		if (dangling == null) return;
 		if (danglings == null) danglings = Lists.newArrayList();
@@ -191,7 +214,8 @@ abstract class AbstractNode implements Node {
 	}
 	
 	abstract static class WithParens extends AbstractNode implements Expression {
-		private List<Position> parensPositions = Lists.newArrayList();
+		/* Created on first use; most literals are never parenthesized. */
+		private List<Position> parensPositions;
 		
 		@Override
 		public boolean needsParentheses() {
@@ -200,17 +224,18 @@ abstract class AbstractNode implements Node {
 		
 		@Override
 		public List<Position> astParensPositions() {
+			if (parensPositions == null) parensPositions = Lists.newArrayList();
 			return parensPositions;
 		}
 		
 		@Override
 		public int getParens() {
-			return this.parensPositions.size();
+			return this.parensPositions == null ? 0 : this.parensPositions.size();
 		}
 		
 		@Override
 		public int getIntendedParens() {
-			return this.parensPositions.size();
+			return getParens();
 		}
 	}
 }
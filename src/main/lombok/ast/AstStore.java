@@ -0,0 +1,496 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only, memory mapped store of many lombok.ast trees, meant for querying entire code bases without holding their nodes on the heap.
+ * 
+ * Every node in the store is identified by an index. The store keeps, per node, its kind (node class), the indices of its parent, first child
+ * and next sibling, its position, and a 'text': the string value most characteristic of the node, such as the name of an identifier or the
+ * raw value of a literal. These are stored as columns, so a scan over one property only touches that property. Children are the nodes
+ * returned by {@link Node#getChildren()}, in that order; the nodes of a tree have consecutive indices, in pre-order.
+ * 
+ * Navigation goes through a {@link Cursor}. Any node can be turned back into a real {@code Node} by {@link #materialize(int)}; each tree is
+ * also kept in the format of {@link BinaryAstWriter} for that purpose. Stores are written with a {@link Builder}, and limited to 2GB;
+ * build one store per part of a larger code base.
+ * 
+ * Instances are thread safe; cursors are not.
+ */
+public final class AstStore implements Closeable {
+	private static final int MAGIC = 0x4C415343; // "LASC"
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 64;
+	
+	private static final int KIND = 0, PARENT = 1, FIRST_CHILD = 2, NEXT_SIBLING = 3, START = 4, END = 5, TEXT = 6, COLUMNS = 7;
+	private static final int ROOT_NAME = 0, ROOT_NODE = 1, ROOT_BLOB_OFFSET = 2, ROOT_BLOB_LENGTH = 3, ROOT_COLUMNS = 4;
+	
+	private final RandomAccessFile file;
+	private final ByteBuffer buffer;
+	private final IntBuffer columns, roots, stringOffsets, classNames;
+	private final CharBuffer stringChars;
+	private final int nodeCount, rootCount;
+	
+	private AstStore(RandomAccessFile file, MappedByteBuffer buffer) throws IOException {
+		this.file = file;
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC) throw new IOException("Not a lombok.ast store");
+		int version = buffer.getInt(4);
+		if (version != FORMAT_VERSION) throw new IOException("Unsupported lombok.ast store version: " + version);
+		nodeCount = buffer.getInt(8);
+		rootCount = buffer.getInt(12);
+		int classCount = buffer.getInt(16);
+		int stringCount = buffer.getInt(20);
+		columns = intSection(buffer.getInt(24), nodeCount * COLUMNS);
+		roots = intSection(buffer.getInt(28), rootCount * ROOT_COLUMNS);
+		classNames = intSection(buffer.getInt(32), classCount);
+		stringOffsets = intSection(buffer.getInt(36), stringCount + 1);
+		ByteBuffer chars = buffer.duplicate();
+		chars.position(buffer.getInt(40));
+		stringChars = chars.slice().asCharBuffer();
+	}
+	
+	private IntBuffer intSection(int offset, int length) {
+		ByteBuffer section = buffer.duplicate();
+		section.position(offset);
+		section.limit(offset + length * 4);
+		return section.slice().asIntBuffer();
+	}
+	
+	public static AstStore open(File f) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(f, "r");
+		try {
+			return new AstStore(file, file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length()));
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		} catch (RuntimeException e) {
+			file.close();
+			throw e;
+		}
+	}
+	
+	@Override public void close() throws IOException {
+		file.close();
+	}
+	
+	public int getNodeCount() {
+		return nodeCount;
+	}
+	
+	public int getRootCount() {
+		return rootCount;
+	}
+	
+	/**
+	 * Returns the name the {@code root}th tree was added with, such as the name of its source file.
+	 */
+	public String getRootName(int root) {
+		return string(roots.get(root * ROOT_COLUMNS + ROOT_NAME));
+	}
+	
+	/**
+	 * Returns a cursor on the top node of the {@code root}th tree.
+	 */
+	public Cursor root(int root) {
+		return cursor(roots.get(root * ROOT_COLUMNS + ROOT_NODE));
+	}
+	
+	public Cursor cursor(int node) {
+		if (node < 0 || node >= nodeCount) throw new IndexOutOfBoundsException("node " + node);
+		return new Cursor(node);
+	}
+	
+	/**
+	 * Rebuilds the node with the given index, and everything below it, as a real lombok.ast node. This reads the entire tree the node is part of;
+	 * the returned node is still attached to its (rebuilt) parent.
+	 */
+	public Node materialize(int node) throws IOException {
+		int root = rootOf(node);
+		int rootNode = roots.get(root * ROOT_COLUMNS + ROOT_NODE);
+		
+		ByteBuffer blob = buffer.duplicate();
+		int blobOffset = roots.get(root * ROOT_COLUMNS + ROOT_BLOB_OFFSET);
+		blob.position(blobOffset);
+		blob.limit(blobOffset + roots.get(root * ROOT_COLUMNS + ROOT_BLOB_LENGTH));
+		Node result = new BinaryAstReader(new ByteBufferInputStream(blob.slice())).read();
+		
+		/* Walk down from the root by the position of each ancestor among its siblings. */
+		int depth = 0;
+		for (int n = node; n != rootNode; n = column(PARENT, n)) depth++;
+		int[] path = new int[depth];
+		for (int n = node; n != rootNode; n = column(PARENT, n)) {
+			int position = 0;
+			for (int sibling = column(FIRST_CHILD, column(PARENT, n)); sibling != n; sibling = column(NEXT_SIBLING, sibling)) position++;
+			path[--depth] = position;
+		}
+		for (int position : path) result = result.getChildren().get(position);
+		return result;
+	}
+	
+	private int rootOf(int node) {
+		int low = 0, high = rootCount - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (roots.get(mid * ROOT_COLUMNS + ROOT_NODE) <= node) low = mid;
+			else high = mid - 1;
+		}
+		return low;
+	}
+	
+	private int column(int column, int node) {
+		return columns.get(column * nodeCount + node);
+	}
+	
+	private String string(int id) {
+		if (id < 0) return null;
+		int start = stringOffsets.get(id);
+		int end = stringOffsets.get(id + 1);
+		char[] chars = new char[end - start];
+		for (int i = 0; i < chars.length; i++) chars[i] = stringChars.get(start + i);
+		return new String(chars);
+	}
+	
+	/**
+	 * Receives the nodes of a store in the same order, and with the same meaning of the return value, as an {@link AstVisitor} would.
+	 */
+	public interface Visitor {
+		/**
+		 * @return {@code true} if the children of this node should be skipped.
+		 */
+		boolean visit(Cursor cursor);
+		
+		void endVisit(Cursor cursor);
+	}
+	
+	/**
+	 * Points at one node of the store. Moving a cursor doesn't allocate anything; {@link #copy()} a cursor to remember a node.
+	 */
+	public final class Cursor {
+		private int node;
+		
+		private Cursor(int node) {
+			this.node = node;
+		}
+		
+		public int getIndex() {
+			return node;
+		}
+		
+		/**
+		 * Returns the fully qualified name of the node class, such as {@code lombok.ast.MethodInvocation}.
+		 */
+		public String getKind() {
+			return string(classNames.get(column(KIND, node)));
+		}
+		
+		public boolean is(Class<? extends Node> kind) {
+			return kind.getName().equals(getKind());
+		}
+		
+		public Position getPosition() {
+			int start = column(START, node);
+			int end = column(END, node);
+			return start == -1 && end == -1 ? Position.UNPLACED : new Position(start, end);
+		}
+		
+		/**
+		 * Returns the characteristic string value of this node, such as the name of an identifier, or {@code null} if it has none.
+		 */
+		public String getText() {
+			return string(column(TEXT, node));
+		}
+		
+		public boolean hasParent() {
+			return column(PARENT, node) != -1;
+		}
+		
+		public boolean toParent() {
+			return moveTo(column(PARENT, node));
+		}
+		
+		public boolean toFirstChild() {
+			return moveTo(column(FIRST_CHILD, node));
+		}
+		
+		public boolean toNextSibling() {
+			return moveTo(column(NEXT_SIBLING, node));
+		}
+		
+		private boolean moveTo(int target) {
+			if (target == -1) return false;
+			node = target;
+			return true;
+		}
+		
+		public Cursor copy() {
+			return new Cursor(node);
+		}
+		
+		/**
+		 * Walks this node and everything below it. The cursor passed to the visitor is this cursor; it points back at this node afterwards.
+		 */
+		public void accept(Visitor visitor) {
+			int top = node;
+			boolean descend = !visitor.visit(this);
+			while (true) {
+				if (descend && toFirstChild()) {
+					descend = !visitor.visit(this);
+					continue;
+				}
+				visitor.endVisit(this);
+				while (node != top && !toNextSibling()) {
+					toParent();
+					visitor.endVisit(this);
+				}
+				if (node == top) return;
+				descend = !visitor.visit(this);
+			}
+		}
+		
+		public Node materialize() throws IOException {
+			return AstStore.this.materialize(node);
+		}
+	}
+	
+	private static final class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+		
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+		
+		@Override public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+		
+		@Override public int read(byte[] b, int off, int len) {
+			if (len == 0) return 0;
+			if (!buffer.hasRemaining()) return -1;
+			len = Math.min(len, buffer.remaining());
+			buffer.get(b, off, len);
+			return len;
+		}
+	}
+	
+	/**
+	 * Writes a store. Trees are written out as they are added, but the columns are kept in memory until the builder is closed, at 28 bytes per node.
+	 */
+	public static final class Builder implements Closeable {
+		private static final String[] TEXT_FIELDS = {"rawValue", "value", "name", "content", "operator"};
+		
+		private final File target;
+		private final DataOutputStream out;
+		private final IntList[] columns = new IntList[COLUMNS];
+		private final IntList roots = new IntList();
+		private final Map<String, Integer> strings = new HashMap<String, Integer>();
+		private final List<String> stringList = new ArrayList<String>();
+		private final Map<Class<?>, Integer> classes = new IdentityHashMap<Class<?>, Integer>();
+		private final IntList classNames = new IntList();
+		private final Map<Class<?>, Field> textFields = new IdentityHashMap<Class<?>, Field>();
+		
+		public Builder(File target) throws IOException {
+			this.target = target;
+			this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(target)));
+			for (int i = 0; i < COLUMNS; i++) columns[i] = new IntList();
+			out.write(new byte[HEADER_SIZE]);
+		}
+		
+		/**
+		 * Adds the tree with {@code root} at the top to the store, under the given name.
+		 */
+		public void add(String name, Node root) throws IOException {
+			ByteArrayOutputStream blob = new ByteArrayOutputStream();
+			BinaryAstWriter writer = new BinaryAstWriter(blob);
+			writer.write(root);
+			writer.close();
+			
+			int offset = position();
+			if ((long) offset + blob.size() >= Integer.MAX_VALUE) throw new IOException("A lombok.ast store can't be larger than 2GB: " + target);
+			blob.writeTo(out);
+			roots.add(string(name));
+			roots.add(addNode(root, -1));
+			roots.add(offset);
+			roots.add(blob.size());
+		}
+		
+		private int addNode(Node node, int parent) {
+			int index = columns[KIND].size();
+			Position p = node.getPosition();
+			columns[KIND].add(kind(node.getClass()));
+			columns[PARENT].add(parent);
+			columns[FIRST_CHILD].add(-1);
+			columns[NEXT_SIBLING].add(-1);
+			columns[START].add(p == null ? -1 : p.getStart());
+			columns[END].add(p == null ? -1 : p.getEnd());
+			columns[TEXT].add(string(text(node)));
+			
+			int previous = -1;
+			for (Node child : node.getChildren()) {
+				int c = addNode(child, index);
+				if (previous == -1) columns[FIRST_CHILD].set(index, c);
+				else columns[NEXT_SIBLING].set(previous, c);
+				previous = c;
+			}
+			return index;
+		}
+		
+		private int kind(Class<?> c) {
+			Integer id = classes.get(c);
+			if (id == null) {
+				classes.put(c, id = classNames.size());
+				classNames.add(string(c.getName()));
+			}
+			return id;
+		}
+		
+		private String text(Node node) {
+			if (!(node instanceof AbstractNode)) return null;
+			Class<? extends AbstractNode> c = ((AbstractNode) node).getClass();
+			Field field;
+			if (textFields.containsKey(c)) {
+				field = textFields.get(c);
+			} else {
+				field = findTextField(NodeLayout.of(c));
+				textFields.put(c, field);
+			}
+			if (field == null) return null;
+			try {
+				Object value = field.get(node);
+				return value == null ? null : value instanceof Enum<?> ? ((Enum<?>) value).name() : value.toString();
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		
+		private static Field findTextField(NodeLayout layout) {
+			for (String name : TEXT_FIELDS) {
+				for (int i = 0; i < layout.fields.size(); i++) {
+					NodeLayout.Kind kind = layout.kinds.get(i);
+					if (kind != NodeLayout.Kind.STRING && kind != NodeLayout.Kind.ENUM) continue;
+					if (layout.fields.get(i).getName().equals(name)) return layout.fields.get(i);
+				}
+			}
+			return null;
+		}
+		
+		private int string(String s) {
+			if (s == null) return -1;
+			Integer id = strings.get(s);
+			if (id == null) {
+				strings.put(s, id = stringList.size());
+				stringList.add(s);
+			}
+			return id;
+		}
+		
+		private int position() throws IOException {
+			/* DataOutputStream stops counting at Integer.MAX_VALUE instead of overflowing. */
+			if (out.size() == Integer.MAX_VALUE) throw new IOException("A lombok.ast store can't be larger than 2GB: " + target);
+			return out.size();
+		}
+		
+		/**
+		 * Writes the columns and string table, and closes the file.
+		 */
+		@Override public void close() throws IOException {
+			int nodeCount = columns[KIND].size();
+			int columnsOffset = position();
+			for (IntList column : columns) column.writeTo(out);
+			int rootsOffset = position();
+			roots.writeTo(out);
+			int classesOffset = position();
+			classNames.writeTo(out);
+			int stringOffsetsOffset = position();
+			int offset = 0;
+			for (String s : stringList) {
+				out.writeInt(offset);
+				offset += s.length();
+			}
+			out.writeInt(offset);
+			int stringCharsOffset = position();
+			for (String s : stringList) out.writeChars(s);
+			position();
+			out.close();
+			
+			RandomAccessFile file = new RandomAccessFile(target, "rw");
+			try {
+				file.writeInt(MAGIC);
+				file.writeInt(FORMAT_VERSION);
+				file.writeInt(nodeCount);
+				file.writeInt(roots.size() / ROOT_COLUMNS);
+				file.writeInt(classNames.size());
+				file.writeInt(stringList.size());
+				file.writeInt(columnsOffset);
+				file.writeInt(rootsOffset);
+				file.writeInt(classesOffset);
+				file.writeInt(stringOffsetsOffset);
+				file.writeInt(stringCharsOffset);
+			} finally {
+				file.close();
+			}
+		}
+	}
+	
+	private static final class IntList {
+		private int[] data = new int[1024];
+		private int size;
+		
+		void add(int value) {
+			if (size == data.length) data = Arrays.copyOf(data, size * 2);
+			data[size++] = value;
+		}
+		
+		void set(int index, int value) {
+			data[index] = value;
+		}
+		
+		int size() {
+			return size;
+		}
+		
+		void writeTo(DataOutputStream out) throws IOException {
+			for (int i = 0; i < size; i++) out.writeInt(data[i]);
+		}
+	}
+}
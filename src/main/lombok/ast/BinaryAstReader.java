@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads trees written by a {@link BinaryAstWriter}. The trees are rebuilt exactly as they were written, including positions, parentheses,
+ * javadoc and dangling nodes, without parsing anything.
+ */
+public class BinaryAstReader implements Closeable {
+	private final InputStream in;
+	private final List<String> strings = new ArrayList<String>();
+	private final List<NodeLayout> classes = new ArrayList<NodeLayout>();
+	
+	/**
+	 * @throws IOException If the stream doesn't start with the header of a supported version of the format.
+	 */
+	public BinaryAstReader(InputStream in) throws IOException {
+		this.in = new BufferedInputStream(in);
+		for (byte b : BinaryAstWriter.MAGIC) {
+			if (readByte() != b) throw new IOException("Not a binary lombok.ast stream");
+		}
+		long version = readVarint();
+		if (version != BinaryAstWriter.FORMAT_VERSION) throw new IOException("Unsupported binary lombok.ast format version: " + version);
+	}
+	
+	/**
+	 * Returns the next tree in the stream, or {@code null} if there are no more trees.
+	 */
+	public Node read() throws IOException {
+		int marker = in.read();
+		if (marker == -1) return null;
+		if (marker != BinaryAstWriter.RECORD) throw new IOException("Corrupt binary lombok.ast stream");
+		return readNode();
+	}
+	
+	@Override public void close() throws IOException {
+		in.close();
+	}
+	
+	private AbstractNode readNode() throws IOException {
+		long classId = readVarint();
+		if (classId == 0) return null;
+		
+		NodeLayout layout;
+		if (classId == 1) {
+			layout = readLayout();
+			classes.add(layout);
+		} else {
+			if (classId - 2 >= classes.size()) throw new IOException("Corrupt binary lombok.ast stream");
+			layout = classes.get((int) (classId - 2));
+		}
+		
+		AbstractNode node;
+		try {
+			node = layout.nodeClass.newInstance();
+		} catch (Exception e) {
+			throw new IOException("Can't create node " + layout.nodeClass.getName() + ": " + e);
+		}
+		
+		node.setPosition(readPosition());
+		
+		List<Field> fields = layout.fields;
+		for (int i = 0; i < fields.size(); i++) {
+			try {
+				readField(node, fields.get(i), layout.kinds.get(i));
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		
+		long danglings = readVarint();
+		for (long i = 0; i < danglings; i++) node.addDanglingNode(readNode());
+		
+		return node;
+	}
+	
+	private NodeLayout readLayout() throws IOException {
+		String className = readString();
+		Class<?> c;
+		try {
+			c = Class.forName(className, true, AbstractNode.class.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			throw new IOException("Unknown node class in binary lombok.ast stream: " + className);
+		}
+		if (!AbstractNode.class.isAssignableFrom(c)) throw new IOException("Not a lombok.ast node class: " + className);
+		
+		NodeLayout layout = NodeLayout.of(c.asSubclass(AbstractNode.class));
+		long fieldCount = readVarint();
+		boolean matches = fieldCount == layout.names.size();
+		for (long i = 0; i < fieldCount; i++) {
+			String name = readString();
+			if (matches && !name.equals(layout.names.get((int) i))) matches = false;
+		}
+		if (!matches) throw new IOException("Binary lombok.ast stream was written by an incompatible version of lombok.ast (" + className + " differs)");
+		return layout;
+	}
+	
+	private void readField(AbstractNode node, Field field, NodeLayout.Kind kind) throws IOException, IllegalAccessException {
+		switch (kind) {
+		case CHILD:
+			AbstractNode child = readNode();
+			if (child != null) {
+				node.adopt(child);
+				field.set(node, child);
+			}
+			return;
+		case LIST:
+			RawListAccessor<?, ?> list = ((ListAccessor<?, ?>) field.get(node)).asRaw();
+			long size = readVarint();
+			for (long i = 0; i < size; i++) list.addToEnd(readNode());
+			return;
+		case POSITIONS:
+			long count = readVarint();
+			if (count == 0) {
+				field.set(node, null);
+				return;
+			}
+			List<Position> positions = new ArrayList<Position>((int) Math.min(count - 1, 16));
+			for (long i = 1; i < count; i++) positions.add(readPosition());
+			field.set(node, positions);
+			return;
+		case STRING:
+			field.set(node, readString());
+			return;
+		case ENUM:
+			String name = readString();
+			@SuppressWarnings({"unchecked", "rawtypes"})
+			Object value = name == null ? null : Enum.valueOf((Class) field.getType(), name);
+			field.set(node, value);
+			return;
+		default:
+			if (kind.unboxed != null) {
+				field.set(node, readByte() == 0 ? null : readValue(kind.unboxed));
+			} else {
+				field.set(node, readValue(kind));
+			}
+		}
+	}
+	
+	private Object readValue(NodeLayout.Kind kind) throws IOException {
+		switch (kind) {
+		case BOOLEAN:
+			return readByte() != 0;
+		case INT:
+			return (int) readSignedVarint();
+		case LONG:
+			return readSignedVarint();
+		case FLOAT:
+			return Float.intBitsToFloat((int) readFixed(4));
+		case DOUBLE:
+			return Double.longBitsToDouble(readFixed(8));
+		case CHAR:
+			return (char) readVarint();
+		default:
+			throw new IllegalStateException("Not a primitive kind: " + kind);
+		}
+	}
+	
+	private Position readPosition() throws IOException {
+		long start = readVarint();
+		if (start == 0) return Position.UNPLACED;
+		return new Position((int) (start - 1), (int) (start - 1 + readSignedVarint()));
+	}
+	
+	private String readString() throws IOException {
+		long id = readVarint();
+		if (id == 0) return null;
+		if (id > 1) {
+			if (id - 2 >= strings.size()) throw new IOException("Corrupt binary lombok.ast stream");
+			return strings.get((int) (id - 2));
+		}
+		
+		long length = readVarint();
+		if (length > Integer.MAX_VALUE) throw new IOException("Corrupt binary lombok.ast stream");
+		char[] chars = new char[(int) length];
+		for (int i = 0; i < chars.length; i++) chars[i] = (char) readVarint();
+		String s = new String(chars);
+		strings.add(s);
+		return s;
+	}
+	
+	private long readSignedVarint() throws IOException {
+		long raw = readVarint();
+		return (raw >>> 1) ^ -(raw & 1);
+	}
+	
+	private long readVarint() throws IOException {
+		long result = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = readByte();
+			result |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return result;
+		}
+		throw new IOException("Corrupt binary lombok.ast stream");
+	}
+	
+	private long readFixed(int bytes) throws IOException {
+		long result = 0;
+		for (int i = 0; i < bytes; i++) result |= (long) readByte() << (i * 8);
+		return result;
+	}
+	
+	private int readByte() throws IOException {
+		int b = in.read();
+		if (b == -1) throw new EOFException("Unexpected end of binary lombok.ast stream");
+		return b;
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes lombok.ast trees to a stream in a compact binary format, which can be read back with a {@link BinaryAstReader}.
+ * 
+ * The stream starts with a short header holding the format version, followed by one record per written tree. Strings (identifiers, literals,
+ * comment text, and the names of node classes) are written in full only the first time they occur in the stream; after that they are written
+ * as a reference to that first occurrence. The first time a node class occurs, the names of its fields are written as well, so that a reader
+ * with a different version of lombok.ast refuses the stream instead of misreading it. Positions and counts are written as variable length
+ * integers.
+ * 
+ * Any comments that are not part of the tree (only javadoc is) can be written as separate trees, as comments are nodes too. Dangling nodes
+ * are included with the node they are attached to. Messages, and the node that generated a node, are not written.
+ */
+public class BinaryAstWriter implements Closeable, Flushable {
+	static final byte[] MAGIC = {'L', 'A', 'S', 'T'};
+	static final int FORMAT_VERSION = 1;
+	static final int RECORD = 1;
+	
+	private final OutputStream out;
+	private final Map<String, Integer> strings = new HashMap<String, Integer>();
+	private final Map<Class<?>, Integer> classes = new IdentityHashMap<Class<?>, Integer>();
+	
+	public BinaryAstWriter(OutputStream out) throws IOException {
+		this.out = new BufferedOutputStream(out);
+		this.out.write(MAGIC);
+		writeVarint(FORMAT_VERSION);
+	}
+	
+	/**
+	 * Writes {@code node} and everything below it as the next tree in the stream.
+	 * 
+	 * @throws IllegalArgumentException If {@code node} (or any node below it) isn't one of the node classes of lombok.ast itself.
+	 */
+	public void write(Node node) throws IOException {
+		if (node == null) throw new NullPointerException("node");
+		out.write(RECORD);
+		writeNode(node);
+	}
+	
+	@Override public void flush() throws IOException {
+		out.flush();
+	}
+	
+	@Override public void close() throws IOException {
+		out.close();
+	}
+	
+	private void writeNode(Node node) throws IOException {
+		if (node == null) {
+			writeVarint(0);
+			return;
+		}
+		if (!(node instanceof AbstractNode)) throw new IllegalArgumentException("Not a lombok.ast node: " + node.getClass().getName());
+		
+		AbstractNode n = (AbstractNode) node;
+		NodeLayout layout = NodeLayout.of(n.getClass());
+		Integer classId = classes.get(n.getClass());
+		if (classId != null) {
+			writeVarint(classId + 2);
+		} else {
+			classes.put(n.getClass(), classes.size());
+			writeVarint(1);
+			writeString(n.getClass().getName());
+			writeVarint(layout.names.size());
+			for (String name : layout.names) writeString(name);
+		}
+		
+		writePosition(n.getPosition());
+		
+		List<Field> fields = layout.fields;
+		for (int i = 0; i < fields.size(); i++) {
+			try {
+				writeField(layout.kinds.get(i), fields.get(i).get(n));
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		
+		List<Node> danglings = n.getDanglingNodes();
+		writeVarint(danglings.size());
+		for (Node dangling : danglings) writeNode(dangling);
+	}
+	
+	private void writeField(NodeLayout.Kind kind, Object value) throws IOException {
+		switch (kind) {
+		case CHILD:
+			writeNode((Node) value);
+			return;
+		case LIST:
+			List<AbstractNode> list = ((ListAccessor<?, ?>) value).backingList();
+			writeVarint(list.size());
+			for (AbstractNode child : list) writeNode(child);
+			return;
+		case POSITIONS:
+			@SuppressWarnings("unchecked")
+			List<Position> positions = (List<Position>) value;
+			if (positions == null) {
+				writeVarint(0);
+				return;
+			}
+			writeVarint(positions.size() + 1);
+			for (Position p : positions) writePosition(p);
+			return;
+		case STRING:
+			writeString((String) value);
+			return;
+		case ENUM:
+			writeString(value == null ? null : ((Enum<?>) value).name());
+			return;
+		case BOOLEAN:
+			out.write((Boolean) value ? 1 : 0);
+			return;
+		case INT:
+		case LONG:
+			writeSignedVarint(((Number) value).longValue());
+			return;
+		case FLOAT:
+			writeFixed(Float.floatToRawIntBits((Float) value), 4);
+			return;
+		case DOUBLE:
+			writeFixed(Double.doubleToRawLongBits((Double) value), 8);
+			return;
+		case CHAR:
+			writeVarint((Character) value);
+			return;
+		default:
+			/* Boxed values: a presence marker, followed by the value as the primitive kind. */
+			out.write(value == null ? 0 : 1);
+			if (value != null) writeField(kind.unboxed, value);
+		}
+	}
+	
+	private void writePosition(Position p) throws IOException {
+		if (p == null || p.isUnplaced()) {
+			writeVarint(0);
+			return;
+		}
+		writeVarint(p.getStart() + 1L);
+		writeSignedVarint(p.getEnd() - (long) p.getStart());
+	}
+	
+	private void writeString(String s) throws IOException {
+		if (s == null) {
+			writeVarint(0);
+			return;
+		}
+		Integer id = strings.get(s);
+		if (id != null) {
+			writeVarint(id + 2);
+			return;
+		}
+		strings.put(s, strings.size());
+		writeVarint(1);
+		writeVarint(s.length());
+		for (int i = 0; i < s.length(); i++) writeVarint(s.charAt(i));
+	}
+	
+	private void writeSignedVarint(long value) throws IOException {
+		writeVarint((value << 1) ^ (value >> 63));
+	}
+	
+	private void writeVarint(long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+	
+	private void writeFixed(long value, int bytes) throws IOException {
+		for (int i = 0; i < bytes; i++) {
+			out.write((int) (value & 0xFF));
+			value >>>= 8;
+		}
+	}
+}
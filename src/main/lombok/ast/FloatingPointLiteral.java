@@ -22,7 +22,7 @@
 package lombok.ast;
 
 public class FloatingPointLiteral extends AbstractNode.WithParens implements Literal, Expression, DescribedNode {
-	private Double value;
+	private double value;
 	private String rawValue;
 	private String errorReasonForValue = "Missing value";
 	private boolean markedAsFloat;
@@ -35,7 +35,7 @@ public class FloatingPointLiteral extends AbstractNode.WithParens implements Lit
 	
 	@Override
 	public String getDescription() {
-		return value != null ? String.valueOf(value) : null;
+		return errorReasonForValue == null ? String.valueOf(value) : null;
 	}
 	
 	public String getErrorReasonForValue() {
@@ -70,9 +70,9 @@ public class FloatingPointLiteral extends AbstractNode.WithParens implements Lit
 	public FloatingPointLiteral copy() {
 		FloatingPointLiteral result = new FloatingPointLiteral();
 		result.value = value;
-		result.rawValue = result.rawValue;
-		result.errorReasonForValue = result.errorReasonForValue;
-		result.markedAsFloat = result.markedAsFloat;
+		result.rawValue = rawValue;
+		result.errorReasonForValue = errorReasonForValue;
+		result.markedAsFloat = markedAsFloat;
 		result.literalType = literalType;
 		return result;
 	}
@@ -90,7 +90,7 @@ public class FloatingPointLiteral extends AbstractNode.WithParens implements Lit
 		checkSpecialValues(value);
 		this.markedAsFloat = true;
 		this.errorReasonForValue = null;
-		this.value = Double.valueOf(value);
+		this.value = value;
 		updateRawValue();
 		return this;
 	}
@@ -121,7 +121,7 @@ public class FloatingPointLiteral extends AbstractNode.WithParens implements Lit
 	public FloatingPointLiteral rawValue(String raw) {
 		if (raw == null) {
 			this.rawValue = null;
-			this.value = null;
+			this.value = 0.0D;
 			this.errorReasonForValue = "Missing value";
 			this.markedAsFloat = false;
 		} else {
@@ -132,7 +132,7 @@ public class FloatingPointLiteral extends AbstractNode.WithParens implements Lit
 			v = (markedAsFloat || v.endsWith("D") || v.endsWith("d")) ? raw.substring(0, raw.length()-1) : raw;
 			if (v.startsWith("-")) {
 				this.errorReasonForValue = "Floating Point literals can't start with -; wrap them in a UnaryExpression: " + v;
-				this.value = null;
+				this.value = 0.0D;
 				return this;
 			}
 			try {
@@ -140,7 +140,7 @@ public class FloatingPointLiteral extends AbstractNode.WithParens implements Lit
 				value = Double.parseDouble(v);
 				literalType = (v.startsWith("0x") || v.startsWith("0X")) ? LiteralType.HEXADECIMAL : LiteralType.DECIMAL;
 			} catch (NumberFormatException e) {
-				this.value = null;
+				this.value = 0.0D;
 				this.errorReasonForValue = "Not a valid floating point literal: " + v;
 			}
 		}
@@ -149,11 +149,11 @@ public class FloatingPointLiteral extends AbstractNode.WithParens implements Lit
 	}
 	
 	public double astDoubleValue() throws AstException {
-		return value == null ? 0.0D : value.doubleValue();
+		return value;
 	}
 	
 	public float astFloatValue() throws AstException {
-		return value == null ? 0.0F : value.floatValue();
+		return (float) value;
 	}
 	
 	@Override
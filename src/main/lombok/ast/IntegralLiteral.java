@@ -21,12 +21,10 @@
  */
 package lombok.ast;
 
-import java.math.BigInteger;
-
 public class IntegralLiteral extends AbstractNode.WithParens implements Literal, Expression, DescribedNode {
 	private static final String NEGATIVE_NUMBERS_NOT_POSSIBLE = "Negative integral literals don't exist; wrap in a UnaryExpression with operator MINUS";
 	
-	private Long value;
+	private long value;
 	private String rawValue;
 	private String errorReasonForValue = "Missing value";
 	private boolean markedAsLong;
@@ -39,7 +37,7 @@ public class IntegralLiteral extends AbstractNode.WithParens implements Literal,
 	
 	@Override
 	public String getDescription() {
-		return value != null ? String.valueOf(value) : null;
+		return errorReasonForValue == null ? String.valueOf(value) : null;
 	}
 	
 	public String getErrorReasonForValue() {
@@ -196,92 +194,86 @@ public class IntegralLiteral extends AbstractNode.WithParens implements Literal,
 	}
 	
 	public IntegralLiteral rawValue(String raw) {
+		this.rawValue = raw;
+		this.value = 0L;
+		this.markedAsLong = false;
+		
 		if (raw == null) {
-			this.rawValue = null;
-			this.value = null;
 			this.errorReasonForValue = "Missing value";
-			this.markedAsLong = false;
 			return this;
 		}
 		
-		this.rawValue = raw;
-		this.value = null;
 		this.errorReasonForValue = null;
-		this.markedAsLong = false;
-		String v = raw.trim();
+		int start = 0;
+		int end = raw.length();
+		while (start < end && raw.charAt(start) <= ' ') start++;
+		while (end > start && raw.charAt(end - 1) <= ' ') end--;
 		
-		if (v.startsWith("-")) {
+		if (start < end && raw.charAt(start) == '-') {
 			this.errorReasonForValue = NEGATIVE_NUMBERS_NOT_POSSIBLE;
 			return this;
 		}
 		
-		boolean markedAsLong = v.endsWith("L") || v.endsWith("l");
-		v = markedAsLong ? raw.substring(0, raw.length()-1) : raw;
+		boolean markedAsLong = end > start && (raw.charAt(end - 1) == 'L' || raw.charAt(end - 1) == 'l');
+		if (markedAsLong) end--;
+		
 		LiteralType newLT;
-		int radix;
-		int prefix;
-		if (v.startsWith("0x")) {
+		int shift;
+		if (end - start > 1 && raw.charAt(start) == '0' && (raw.charAt(start + 1) == 'x' || raw.charAt(start + 1) == 'X')) {
 			newLT = LiteralType.HEXADECIMAL;
-			radix = 0x10;
-			prefix = 2;
-		} else if (v.startsWith("0") && v.length() > 1) {
+			shift = 4;
+			start += 2;
+		} else if (end - start > 1 && raw.charAt(start) == '0') {
 			newLT = LiteralType.OCTAL;
-			radix = 010;
-			prefix = 1;
+			shift = 3;
+			start += 1;
 		} else {
 			newLT = LiteralType.DECIMAL;
-			radix = 10;
-			prefix = 0;
+			shift = 0;
 		}
 		
-		long v1 = 0;
-		BigInteger v2 = null;
-		
-		try {
-			v1 = Long.parseLong(v.substring(prefix), radix);
-		} catch (NumberFormatException e) {
-			try {
-				v2 = new BigInteger(v.substring(prefix), radix);
-			} catch (NumberFormatException e2) {
-				this.value = null;
-				this.errorReasonForValue = "Not a valid integral literal: " + v;
-				return this;
+		/* Digits are accumulated as an unsigned 64-bit number; 'overflow' tracks whether it no longer fits in that. */
+		long v = 0;
+		boolean overflow = false;
+		int radix = shift == 0 ? 10 : 1 << shift;
+		if (start == end) return invalidIntegralLiteral(raw, end);
+		for (int i = start; i < end; i++) {
+			int digit = Character.digit(raw.charAt(i), radix);
+			if (digit == -1) return invalidIntegralLiteral(raw, end);
+			if (overflow) continue;
+			if (shift == 0) {
+				if (v < 0 || v > 1844674407370955161L || (v == 1844674407370955161L && digit > 5)) overflow = true;
+				else v = v * 10 + digit;
+			} else {
+				if ((v >>> (64 - shift)) != 0) overflow = true;
+				else v = (v << shift) | digit;
 			}
 		}
 		
-		Object result = setRawValue0(markedAsLong, v1, v2);
-		if (result instanceof Long) {
+		if (!markedAsLong && (overflow || v < 0)) {
+			this.errorReasonForValue = "Int Literal above maximum value: " + raw.substring(0, end);
+		} else if (overflow) {
+			this.errorReasonForValue = "Long literal too large: " + raw.substring(0, end);
+		} else {
 			this.markedAsLong = markedAsLong;
 			this.literalType = newLT;
-			this.value = (Long)result;
-		} else {
-			this.errorReasonForValue = ((String)result) + v;
+			this.value = v;
 		}
 		
 		return this;
 	}
 	
-	private static final BigInteger MAX_UNSIGNED_LONG = new BigInteger("FFFFFFFFFFFFFFFF", 0x10);
-	
-	private static Object setRawValue0(boolean markedAsLong, long v1, BigInteger v2) {
-		if (v2 == null) { //Parsed number fits in standard long.
-			return v1;
-		} else { //Number only fits as a BigDecimal
-			//There aren't many legal options here; it would have to be an unsigned format (hex/oct), and a long.
-			if (!markedAsLong) return "Int Literal above maximum value: ";
-			
-			if (v2.compareTo(MAX_UNSIGNED_LONG) <= 0) return v2.longValue();
-			
-			return "Long literal too large: ";
-		}
+	private IntegralLiteral invalidIntegralLiteral(String raw, int end) {
+		this.errorReasonForValue = "Not a valid integral literal: " + raw.substring(0, end);
+		return this;
 	}
 	
 	public long astLongValue() throws AstException {
-		return value == null ? 0L : value.longValue();
+		return value;
 	}
 	
 	public int astIntValue() throws AstException {
-		return value == null ? 0 : value.intValue();
+		return (int) value;
 	}
 	
 	@Override
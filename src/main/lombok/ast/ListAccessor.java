@@ -34,6 +34,8 @@ class ListAccessor<T extends Node, P extends Node> {
 	private final String listName;
 	private final P returnAsParent;
 	private boolean escaped;
+	private volatile Runnable loader;
+	private boolean loading;
 	
 	private ListAccessor(AbstractNode parent, Class<T> tClass, String listName, P returnAsParent) {
 		this.list = new ArrayList<AbstractNode>();
@@ -43,6 +45,37 @@ class ListAccessor<T extends Node, P extends Node> {
 		this.returnAsParent = returnAsParent;
 	}
 	
+	/**
+	 * Marks this list as not yet loaded; the loader is run (once) right before the list is first accessed in any way.
+	 */
+	void defer(Runnable loader) {
+		this.loader = loader;
+	}
+	
+	boolean isDeferred() {
+		return loader != null;
+	}
+	
+	/**
+	 * Runs the loader, if any. Other threads that access the list in the meantime wait until it has been loaded; the loader itself can
+	 * access the list freely, as it runs with the lock held and {@code loading} set. If the loader throws, it is kept, so the next access
+	 * tries again instead of silently seeing an empty list.
+	 */
+	private void materialize() {
+		if (loader == null) return;
+		synchronized (this) {
+			Runnable l = loader;
+			if (l == null || loading) return;
+			loading = true;
+			try {
+				l.run();
+				loader = null;
+			} finally {
+				loading = false;
+			}
+		}
+	}
+	
 	private void fixEscaped() {
 		if (escaped) {
 			list = new ArrayList<AbstractNode>(list);
@@ -207,6 +240,7 @@ class ListAccessor<T extends Node, P extends Node> {
 		
 		@Override
 		public void clear() {
+			loader = null;
 			if (escaped) {
 				list = new ArrayList<AbstractNode>();
 				escaped = false;
@@ -217,16 +251,19 @@ class ListAccessor<T extends Node, P extends Node> {
 		
 		@Override
 		public boolean isEmpty() {
+			materialize();
 			return list.isEmpty();
 		}
 		
 		@Override
 		public int size() {
+			materialize();
 			return list.size();
 		}
 		
 		@Override
 		public Node first() {
+			materialize();
 			try {
 				return list.get(0);
 			} catch (IndexOutOfBoundsException e) {
@@ -236,6 +273,7 @@ class ListAccessor<T extends Node, P extends Node> {
 		
 		@Override
 		public Node last() {
+			materialize();
 			try {
 				return list.get(list.size()-1);
 			} catch (IndexOutOfBoundsException e) {
@@ -245,6 +283,7 @@ class ListAccessor<T extends Node, P extends Node> {
 		
 		@Override
 		public boolean contains(Node source) {
+			materialize();
 			if (source == null) return false;
 			if (source.getParent() != parent) return false;
 			for (int i = 0; i < list.size(); i++) {
@@ -266,6 +305,7 @@ class ListAccessor<T extends Node, P extends Node> {
 		
 		@Override
 		public P addToStart(Node... node) {
+			materialize();
 			for (int i = node.length - 1; i >= 0; i--) {
 				AbstractNode child = (AbstractNode)node[i];
 				if (child != null) {
@@ -279,6 +319,7 @@ class ListAccessor<T extends Node, P extends Node> {
 		
 		@Override
 		public P addToEnd(Node... node) {
+			materialize();
 			for (Node n : node) {
 				AbstractNode child = (AbstractNode)n;
 				if (child != null) {
@@ -292,6 +333,7 @@ class ListAccessor<T extends Node, P extends Node> {
 		
 		@Override
 		public P addBefore(Node ref, Node... node) {
+			materialize();
 			if (ref == null) throw new NullPointerException("ref");
 			parent.ensureParentage((AbstractNode)ref);
 			
@@ -316,6 +358,7 @@ class ListAccessor<T extends Node, P extends Node> {
 		
 		@Override
 		public P addAfter(Node ref, Node... node) {
+			materialize();
 			if (ref == null) throw new NullPointerException("ref");
 			parent.ensureParentage((AbstractNode)ref);
 			
@@ -341,6 +384,7 @@ class ListAccessor<T extends Node, P extends Node> {
 		
 		@Override
 		public boolean replace(Node source, Node replacement) throws NoSuchElementException {
+			materialize();
 			if (source == null) return false;
 			if (source.getParent() != parent) return false;
 			if (replacement != null) ((AbstractNode)replacement).ensureParentless();
@@ -366,6 +410,7 @@ class ListAccessor<T extends Node, P extends Node> {
 		
 		@Override
 		public boolean remove(Node source) {
+			materialize();
 			if (source == null) return false;
 			if (source.getParent() != parent) return false;
 			
@@ -387,6 +432,7 @@ class ListAccessor<T extends Node, P extends Node> {
 		}
 		
 		@Override public Iterator<Node> iterator() {
+			materialize();
 			final Iterator<AbstractNode> it = list.iterator();
 			escaped = true;
 			return new Iterator<Node>() {
@@ -415,6 +461,7 @@ class ListAccessor<T extends Node, P extends Node> {
 		}
 		
 		@Override public void clear() {
+			loader = null;
 			if (escaped) {
 				list = new ArrayList<AbstractNode>();
 				escaped = false;
@@ -424,10 +471,12 @@ class ListAccessor<T extends Node, P extends Node> {
 		}
 		
 		@Override public boolean isEmpty() {
+			materialize();
 			return list.isEmpty();
 		}
 		
 		@Override public int size() {
+			materialize();
 			return list.size();
 		}
 		
@@ -496,6 +545,7 @@ class ListAccessor<T extends Node, P extends Node> {
 		}
 		
 		@Override public Iterator<T> iterator() {
+			materialize();
 			final Iterator<AbstractNode> it = list.iterator();
 			escaped = true;
 			
@@ -728,11 +778,13 @@ class ListAccessor<T extends Node, P extends Node> {
 	}
 	
 	Iterable<AbstractNode> asIterable() {
+		materialize();
 		escaped = true;
 		return list;
 	}
 	
 	List<AbstractNode> backingList() {
+		materialize();
 		return list;
 	}
 }
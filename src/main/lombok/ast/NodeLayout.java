@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Describes the state of a node class as a fixed list of fields, for use by {@link BinaryAstWriter} and {@link BinaryAstReader}.
+ * 
+ * All fields declared by the node class and its superclasses below {@link AbstractNode} are included, starting with the topmost
+ * superclass; the fields of each class are sorted by name, as reflection doesn't guarantee any order. The state held by {@code AbstractNode} itself is handled separately by the writer and reader.
+ */
+final class NodeLayout {
+	enum Kind {
+		CHILD, LIST, POSITIONS, STRING, ENUM,
+		BOOLEAN, INT, LONG, FLOAT, DOUBLE, CHAR,
+		BOXED_BOOLEAN(BOOLEAN), BOXED_INT(INT), BOXED_LONG(LONG), BOXED_FLOAT(FLOAT), BOXED_DOUBLE(DOUBLE), BOXED_CHAR(CHAR);
+		
+		/** For boxed kinds, the kind of the primitive value; {@code null} for all others. */
+		final Kind unboxed;
+		
+		Kind() {
+			this(null);
+		}
+		
+		Kind(Kind unboxed) {
+			this.unboxed = unboxed;
+		}
+	}
+	
+	private static final ConcurrentMap<Class<?>, NodeLayout> LAYOUTS = new ConcurrentHashMap<Class<?>, NodeLayout>();
+	
+	final Class<? extends AbstractNode> nodeClass;
+	final List<Field> fields;
+	final List<Kind> kinds;
+	final List<String> names;
+	
+	private NodeLayout(Class<? extends AbstractNode> nodeClass, List<Field> fields, List<Kind> kinds, List<String> names) {
+		this.nodeClass = nodeClass;
+		this.fields = fields;
+		this.kinds = kinds;
+		this.names = names;
+	}
+	
+	static NodeLayout of(Class<? extends AbstractNode> nodeClass) {
+		NodeLayout layout = LAYOUTS.get(nodeClass);
+		if (layout != null) return layout;
+		layout = create(nodeClass);
+		NodeLayout existing = LAYOUTS.putIfAbsent(nodeClass, layout);
+		return existing == null ? layout : existing;
+	}
+	
+	private static NodeLayout create(Class<? extends AbstractNode> nodeClass) {
+		List<Class<?>> hierarchy = new ArrayList<Class<?>>();
+		for (Class<?> c = nodeClass; c != AbstractNode.class && c != null; c = c.getSuperclass()) hierarchy.add(c);
+		Collections.reverse(hierarchy);
+		
+		List<Field> fields = new ArrayList<Field>();
+		List<Kind> kinds = new ArrayList<Kind>();
+		List<String> names = new ArrayList<String>();
+		for (Class<?> c : hierarchy) {
+			Field[] declared = c.getDeclaredFields();
+			Arrays.sort(declared, BY_NAME);
+			for (Field f : declared) {
+				if (f.isSynthetic() || (f.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) != 0) continue;
+				f.setAccessible(true);
+				fields.add(f);
+				kinds.add(kindOf(f));
+				names.add(c.getSimpleName() + "." + f.getName());
+			}
+		}
+		
+		return new NodeLayout(nodeClass, Collections.unmodifiableList(fields), Collections.unmodifiableList(kinds), Collections.unmodifiableList(names));
+	}
+	
+	private static final Comparator<Field> BY_NAME = new Comparator<Field>() {
+		@Override public int compare(Field o1, Field o2) {
+			return o1.getName().compareTo(o2.getName());
+		}
+	};
+	
+	private static Kind kindOf(Field f) {
+		Class<?> type = f.getType();
+		if (type == ListAccessor.class) return Kind.LIST;
+		if (Node.class.isAssignableFrom(type)) return Kind.CHILD;
+		if (type == String.class) return Kind.STRING;
+		if (type.isEnum()) return Kind.ENUM;
+		if (type == boolean.class) return Kind.BOOLEAN;
+		if (type == int.class) return Kind.INT;
+		if (type == long.class) return Kind.LONG;
+		if (type == float.class) return Kind.FLOAT;
+		if (type == double.class) return Kind.DOUBLE;
+		if (type == char.class) return Kind.CHAR;
+		if (type == Boolean.class) return Kind.BOXED_BOOLEAN;
+		if (type == Integer.class) return Kind.BOXED_INT;
+		if (type == Long.class) return Kind.BOXED_LONG;
+		if (type == Float.class) return Kind.BOXED_FLOAT;
+		if (type == Double.class) return Kind.BOXED_DOUBLE;
+		if (type == Character.class) return Kind.BOXED_CHAR;
+		if (type == List.class) {
+			Type generic = f.getGenericType();
+			if (generic instanceof ParameterizedType && ((ParameterizedType) generic).getActualTypeArguments()[0] == Position.class) return Kind.POSITIONS;
+		}
+		
+		throw new IllegalStateException(String.format("Field %s.%s of type %s can't be serialized",
+				f.getDeclaringClass().getName(), f.getName(), f.getGenericType()));
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * An index of the type declarations and imports of a tree (usually a {@link CompilationUnit}), used to answer 'could this simple name refer to that type'
+ * questions without rescanning the tree. The index is built lazily on first use and cached on the root of the tree; any change to the tree drops it.
+ */
+public final class ScopeIndex {
+	private final Map<String, List<Node>> typeDeclarationContainers = Maps.newHashMap();
+	private final Set<String> importedNames = Sets.newHashSet();
+	private final Set<String> starImportedPackages = Sets.newHashSet();
+	private final boolean compilationUnit, hasPackageDeclaration;
+	
+	private ScopeIndex(Node root) {
+		CompilationUnit cu = root instanceof CompilationUnit ? (CompilationUnit) root : null;
+		compilationUnit = cu != null;
+		hasPackageDeclaration = cu != null && cu.rawPackageDeclaration() != null;
+		
+		if (cu != null) for (Node imp : cu.rawImportDeclarations()) {
+			if (!(imp instanceof ImportDeclaration)) continue;
+			ImportDeclaration i = (ImportDeclaration) imp;
+			String impName = i.asFullyQualifiedName();
+			importedNames.add(impName);
+			if (!i.astStaticImport() && i.astStarImport()) {
+				starImportedPackages.add(impName.substring(0, impName.length() - 2));
+			}
+		}
+		
+		root.accept(new ForwardingAstVisitor() {
+			@Override public boolean visitNode(Node node) {
+				if (node instanceof TypeDeclaration && node.getParent() != null) {
+					Identifier name = ((TypeDeclaration) node).astName();
+					String key = name == null ? null : name.astValue();
+					List<Node> containers = typeDeclarationContainers.get(key);
+					if (containers == null) typeDeclarationContainers.put(key, containers = Lists.newArrayList());
+					containers.add(node.getParent());
+				}
+				return false;
+			}
+		});
+	}
+	
+	/**
+	 * Returns the index for the tree that {@code node} is a part of, building it if no valid index is cached.
+	 */
+	public static ScopeIndex of(Node node) {
+		Node root = node;
+		while (root.getParent() != null) root = root.getParent();
+		if (!(root instanceof AbstractNode)) return new ScopeIndex(root);
+		
+		AbstractNode rootNode = (AbstractNode) root;
+		ScopeIndex index = rootNode.getScopeIndex();
+		if (index == null) {
+			index = new ScopeIndex(root);
+			rootNode.setScopeIndex(index);
+		}
+		return index;
+	}
+	
+	/**
+	 * Returns {@code true} if the root of the indexed tree is a {@link CompilationUnit}. If not, there are no imports or package declaration to index.
+	 */
+	public boolean isCompilationUnit() {
+		return compilationUnit;
+	}
+	
+	public boolean hasPackageDeclaration() {
+		return hasPackageDeclaration;
+	}
+	
+	/**
+	 * Returns {@code true} if there is an import statement (static or not, star or not) whose fully qualified name is exactly {@code name}.
+	 */
+	public boolean isImported(String name) {
+		return importedNames.contains(name);
+	}
+	
+	/**
+	 * Returns {@code true} if there is a non-static star import for the provided package.
+	 */
+	public boolean isStarImported(String packageName) {
+		return starImportedPackages.contains(packageName);
+	}
+	
+	/**
+	 * Returns {@code true} if a type named {@code simpleName} is declared in the compilation unit, a type body, or a block that
+	 * encloses {@code from}, in which case that declaration shadows any imported type with the same simple name.
+	 */
+	public boolean isShadowed(String simpleName, Node from) {
+		List<Node> containers = typeDeclarationContainers.get(simpleName);
+		if (containers == null) return false;
+		
+		Node n = from;
+		while (n != null) {
+			for (Node container : containers) if (container == n) return true;
+			n = n.getParent();
+		}
+		return false;
+	}
+}
@@ -122,6 +122,23 @@ class CatchTemplate {
 @GenerateAstNode(implementing=Statement.class)
 class BlockTemplate {
 	@ParentAccessor List<Statement> contents1;
+	
+	/**
+	 * Returns {@code true} if the statements in this block haven't been built yet. They will be built the first time the block's contents
+	 * are accessed (including by visitors and {@code copy()}).
+	 */
+	@CopyMethod
+	static boolean isDeferred(Block self) {
+		return self.contents.isDeferred();
+	}
+	
+	/**
+	 * Leaves this block's contents empty until first access, at which point {@code loader} is run to fill them in.
+	 */
+	@CopyMethod
+	static void deferContents(Block self, Runnable loader) {
+		self.contents.defer(loader);
+	}
 }
 
 @GenerateAstNode(implementing=Statement.class)
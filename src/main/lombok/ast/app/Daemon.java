@@ -0,0 +1,174 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.app;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import lombok.RequiredArgsConstructor;
+
+import org.parboiled.google.collect.Lists;
+
+import com.google.common.io.Files;
+
+/**
+ * Serves {@link Main} command lines over a socket on the loopback interface, so that a build tool can convert files without paying for
+ * a fresh VM, class loading, and compiler set-up on every invocation.
+ * <p>
+ * Each connection carries one request, in UTF-8: the secret token, the working directory that relative file names are resolved against,
+ * then the arguments, one per line, and finally an empty line. The reply contains each line the run printed, prefixed with {@code out:} or
+ * {@code err:}, followed by a last line with {@code exit:} and the exit code. Connections are handled concurrently.
+ * <p>
+ * Any local user can connect to the port, so the daemon only serves clients that can read its token file,
+ * {@code ~/.lombok.ast-daemon-<port>.token}, which is created fresh on start-up and is readable and writable only by its owner.
+ * A connection that stays silent for {@value #TIMEOUT_MILLIS} ms is dropped.
+ */
+@RequiredArgsConstructor
+class Daemon {
+	private static final String UTF_8 = "UTF-8";
+	private static final int TIMEOUT_MILLIS = 30000;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	
+	private final int port;
+	private byte[] token;
+	
+	void serve(PrintStream log) throws IOException {
+		ServerSocket server = new ServerSocket(port, 50, InetAddress.getByName("127.0.0.1"));
+		File tokenFile = new File(System.getProperty("user.home"), ".lombok.ast-daemon-" + server.getLocalPort() + ".token");
+		ExecutorService handlers = Executors.newCachedThreadPool();
+		try {
+			token = writeToken(tokenFile).getBytes(UTF_8);
+			log.printf("lombok.ast daemon listening on 127.0.0.1:%d, token in %s\n", server.getLocalPort(), tokenFile.getAbsolutePath());
+			while (true) {
+				final Socket socket = server.accept();
+				socket.setSoTimeout(TIMEOUT_MILLIS);
+				handlers.execute(new Runnable() {
+					@Override public void run() {
+						handle(socket);
+					}
+				});
+			}
+		} finally {
+			handlers.shutdown();
+			server.close();
+			tokenFile.delete();
+		}
+	}
+	
+	/**
+	 * Creates a new random token and stores it in {@code file}, which only its owner may read or write.
+	 */
+	private static String writeToken(File file) throws IOException {
+		byte[] random = new byte[16];
+		new SecureRandom().nextBytes(random);
+		char[] hex = new char[random.length * 2];
+		for (int i = 0; i < random.length; i++) {
+			hex[i * 2] = HEX[(random[i] >> 4) & 0xF];
+			hex[i * 2 + 1] = HEX[random[i] & 0xF];
+		}
+		String token = new String(hex);
+		
+		/* Restrict the empty file first, so that the token is never readable by anyone else. */
+		if (file.exists() && !file.delete()) throw new IOException("Can't replace token file: " + file.getAbsolutePath());
+		if (!file.createNewFile()) throw new IOException("Can't create token file: " + file.getAbsolutePath());
+		boolean restricted = file.setReadable(false, false) && file.setReadable(true, true) &&
+				file.setWritable(false, false) && file.setWritable(true, true);
+		if (!restricted) {
+			file.delete();
+			throw new IOException("Can't make token file private: " + file.getAbsolutePath());
+		}
+		Files.write(token + "\n", file, Charset.forName(UTF_8));
+		return token;
+	}
+	
+	private void handle(Socket socket) {
+		try {
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+			String requestToken = in.readLine();
+			if (requestToken == null || !MessageDigest.isEqual(token, requestToken.getBytes(UTF_8))) {
+				Writer reply = new OutputStreamWriter(socket.getOutputStream(), UTF_8);
+				reply.write("err:A request must start with the token from the daemon's token file\nexit:1\n");
+				reply.flush();
+				return;
+			}
+			String workingDir = in.readLine();
+			List<String> args = Lists.newArrayList();
+			for (String line = in.readLine(); line != null && !line.isEmpty(); line = in.readLine()) args.add(line);
+			
+			ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+			ByteArrayOutputStream errBytes = new ByteArrayOutputStream();
+			PrintStream stdout = new PrintStream(outBytes, true, UTF_8);
+			PrintStream stderr = new PrintStream(errBytes, true, UTF_8);
+			int exitCode;
+			if (workingDir == null || !new File(workingDir).isAbsolute()) {
+				stderr.println("A request must start with the absolute path of the working directory");
+				exitCode = 1;
+			} else {
+				try {
+					exitCode = Main.run(args.toArray(new String[0]), new File(workingDir), stdout, stderr, true);
+				} catch (Exception e) {
+					stderr.println(e);
+					exitCode = 1;
+				}
+			}
+			stdout.flush();
+			stderr.flush();
+			
+			Writer reply = new OutputStreamWriter(socket.getOutputStream(), UTF_8);
+			writeLines(reply, "out:", outBytes.toString(UTF_8));
+			writeLines(reply, "err:", errBytes.toString(UTF_8));
+			reply.write("exit:" + exitCode + "\n");
+			reply.flush();
+		} catch (IOException e) {
+			// The client went away; there is nobody left to report this to.
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException ignore) {}
+		}
+	}
+	
+	private static void writeLines(Writer reply, String prefix, String text) throws IOException {
+		if (text.isEmpty()) return;
+		if (text.endsWith("\n")) text = text.substring(0, text.length() - 1);
+		for (String line : text.split("\r?\n", -1)) {
+			reply.write(prefix);
+			reply.write(line);
+			reply.write("\n");
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Data;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+
+/**
+ * Remembers, in a file in the target directory, which source files were converted into it and what they looked like at the time, so that
+ * a later run with the same program only needs to convert the files that were added or changed since.
+ * <p>
+ * A source is taken to be unchanged if its size and last modified time match the recorded ones; if only the time differs, its content
+ * hash is compared before converting it again. All recorded entries are ignored if the lombok.ast version or the program changed.
+ */
+class IncrementalManifest {
+	static final String FILE_NAME = ".lombok.ast-manifest";
+	private static final String HEADER = "lombok.ast incremental manifest 1";
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	
+	private final File file;
+	private final File targetDir;
+	private final String options;
+	/* Entries from the previous run, keyed on the relative name of the output. */
+	private final Map<String, Entry> previous = Maps.newHashMap();
+	/* Entries for this run, in the order the files were encountered. */
+	private final Map<String, Entry> current = Maps.newLinkedHashMap();
+	/* Relative names of all sources in this run, including those that failed to convert. */
+	private final Set<String> seen = Sets.newHashSet();
+	private boolean optionsChanged;
+	private int unchanged, changed;
+	
+	@Data
+	private static class Entry {
+		final long size;
+		final long lastModified;
+		final String hash;
+	}
+	
+	/**
+	 * @param options A description of everything besides the source content that determines the output.
+	 */
+	IncrementalManifest(File targetDir, String options) throws IOException {
+		this.targetDir = targetDir;
+		this.file = new File(targetDir, FILE_NAME);
+		this.options = lombok.ast.Version.getVersion() + " " + options;
+		if (file.isFile()) load();
+	}
+	
+	private void load() throws IOException {
+		List<String> lines = Files.readLines(file, UTF_8);
+		if (lines.size() < 2 || !HEADER.equals(lines.get(0))) throw new IOException("Not a lombok.ast manifest: " + file.getCanonicalPath());
+		optionsChanged = !options.equals(lines.get(1));
+		for (String line : lines.subList(2, lines.size())) {
+			String[] parts = line.split("\t");
+			if (parts.length != 4) throw new IOException("Damaged lombok.ast manifest: " + file.getCanonicalPath());
+			try {
+				previous.put(parts[0], new Entry(Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3]));
+			} catch (NumberFormatException e) {
+				throw new IOException("Damaged lombok.ast manifest: " + file.getCanonicalPath());
+			}
+		}
+	}
+	
+	/**
+	 * Returns {@code true} if {@code source} is known to be unchanged from its size and last modified time alone, in which case it is
+	 * recorded as converted without needing to be read.
+	 */
+	synchronized boolean isUnchanged(String relativeName, File source) {
+		seen.add(relativeName);
+		Entry old = usablePrevious(relativeName);
+		if (old == null || old.getSize() != source.length() || old.getLastModified() != source.lastModified()) return false;
+		current.put(relativeName, old);
+		unchanged++;
+		return true;
+	}
+	
+	/**
+	 * Records a source with the given content, and returns {@code true} if it has to be converted. The size and last modified time must
+	 * have been taken before the content was read, so that an edit made in between makes the next run read the file again.
+	 */
+	synchronized boolean update(String relativeName, long size, long lastModified, String content) {
+		seen.add(relativeName);
+		Entry old = usablePrevious(relativeName);
+		Entry entry = new Entry(size, lastModified, OutputCache.sha1(content));
+		current.put(relativeName, entry);
+		if (old != null && old.getHash().equals(entry.getHash())) {
+			unchanged++;
+			return false;
+		}
+		changed++;
+		return true;
+	}
+	
+	private Entry usablePrevious(String relativeName) {
+		if (optionsChanged) return null;
+		Entry old = previous.get(relativeName);
+		if (old == null || !new File(targetDir, relativeName).isFile()) return null;
+		return old;
+	}
+	
+	/**
+	 * Forgets {@code relativeName}, so that the next run converts it again. Used for files that failed to convert.
+	 */
+	synchronized void forget(String relativeName) {
+		current.remove(relativeName);
+	}
+	
+	/**
+	 * Returns the relative names of outputs for source files that were converted before, but no longer exist.
+	 */
+	synchronized List<String> getRemoved() {
+		List<String> out = Lists.newArrayList();
+		for (String relativeName : previous.keySet()) {
+			if (!seen.contains(relativeName)) out.add(relativeName);
+		}
+		return out;
+	}
+	
+	synchronized void save() throws IOException {
+		StringBuilder sb = new StringBuilder();
+		sb.append(HEADER).append('\n').append(options).append('\n');
+		for (Map.Entry<String, Entry> e : current.entrySet()) {
+			Entry entry = e.getValue();
+			Joiner.on('\t').appendTo(sb, e.getKey(), entry.getSize(), entry.getLastModified(), entry.getHash()).append('\n');
+		}
+		
+		File tmp = new File(targetDir, FILE_NAME + ".tmp");
+		Files.write(sb, tmp, UTF_8);
+		if (!tmp.renameTo(file)) {
+			file.delete();
+			if (!tmp.renameTo(file)) {
+				tmp.delete();
+				throw new IOException("Can't write manifest: " + file.getCanonicalPath());
+			}
+		}
+	}
+	
+	synchronized String getStatistics() {
+		return String.format("Incremental: %d converted, %d unchanged, %d removed", changed, unchanged, getRemoved().size());
+	}
+}
@@ -2,10 +2,30 @@ package lombok.ast.app;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.tools.SimpleJavaFileObject;
 
@@ -19,6 +39,7 @@ import lombok.ast.ecj.EcjTreeBuilder;
 import lombok.ast.ecj.EcjTreeConverter;
 import lombok.ast.ecj.EcjTreeOperations;
 import lombok.ast.ecj.EcjTreePrinter;
+import lombok.ast.grammar.GrammarProfile;
 import lombok.ast.grammar.ParseProblem;
 import lombok.ast.grammar.Source;
 import lombok.ast.javac.JcTreeBuilder;
@@ -84,7 +105,7 @@ public class Main {
 		
 		@Shorthand("d")
 		@Description("Directory to save converted files to")
-		@Mandatory(onlyIfNot={"print", "help"})
+		@Mandatory(onlyIfNot={"print", "help", "daemon"})
 		private String target;
 		
 		@Shorthand("i")
@@ -101,87 +122,293 @@ public class Main {
 		@FullName("no-positions")
 		private boolean noPositions;
 		
-		@Mandatory
+		@Description("Count how often each rule of the lombok.ast grammar is tried while parsing, and write a ranked report to the given file once all files have been processed. " +
+				"The report is written as CSV if the file name ends in '.csv', and as a text table otherwise.")
+		@FullName("profile-grammar")
+		private String profileGrammar;
+		
+		@Description("Directory to keep a cache of results in. Files that have been converted before, with the same operations and options, " +
+				"are not converted again. Not used with --save-intermediate.")
+		private String cache;
+		
+		@FullName("cache-size")
+		@Description("Maximum size of the cache in megabytes. Defaults to 256.")
+		private int cacheSize = 256;
+		
+		@Description("Only convert files that were added or changed since the last run into the target directory, and delete the output of files " +
+				"that no longer exist. What was converted is recorded in a " + IncrementalManifest.FILE_NAME + " file in the target directory. " +
+				"Can't be combined with --print or --save-intermediate.")
+		private boolean incremental;
+		
+		@Description("Print statistics to standard error once all files have been processed: latency of each operation and of reading and writing files, " +
+				"throughput, garbage collector activity, and the slowest files.")
+		private boolean stats;
+		
+		@FullName("stats-json")
+		@Description("Write the statistics of --stats as JSON to the given file.")
+		private String statsJson;
+		
+		@Shorthand("t")
+		@Description("Number of threads to run each operation on. Defaults to 1. Operations always run concurrently with each other; " +
+				"with more than 1 thread per operation, files printed to standard output may appear out of order.")
+		private int threads = 1;
+		
+		@Description("Instead of converting files, listen on the given port of the loopback interface and run each command line sent to it, " +
+				"keeping parsers and compiler front ends loaded between requests. A request is the secret token the daemon writes to " +
+				"~/.lombok.ast-daemon-<port>.token (readable only by its owner), then the working directory, then the arguments, one per line, " +
+				"ended by an empty line. The reply has a line per line of output, prefixed with 'out:' or 'err:', and ends with 'exit:' and the exit code.")
+		private int daemon;
+		
+		@Mandatory(onlyIfNot={"daemon"})
 		@Sequential
 		@Description("Operations to apply to each source file. Comma-separated (no spaces). Valid options: ecj/javac/lombok first to decide how the file is parsed initially, " +
 				"then any number of further ecj/javac/lombok keywords to convert ASTs, and finally text/source/html.")
 		private String program;
 		
 		@Description("Files to convert. Provide either a file, or a directory. If you use a directory, all files in it (recursive) are converted")
-		@Mandatory
+		@Mandatory(onlyIfNot={"daemon"})
 		@Sequential
 		private List<String> input = new ArrayList<String>();
 	}
 	
 	public static void main(String[] rawArgs) throws Exception {
+		System.exit(run(rawArgs, new File("").getAbsoluteFile(), System.out, System.err, false));
+	}
+	
+	/**
+	 * Runs the tool as if started with the given command line, and returns the exit code. Relative file names are resolved against
+	 * {@code workingDir}, and everything that would go to standard output and standard error is printed to {@code stdout} and {@code stderr}.
+	 */
+	static int run(String[] rawArgs, File workingDir, PrintStream stdout, PrintStream stderr, boolean inDaemon) throws IOException, InterruptedException {
 		CmdArgs args;
 		CmdReader<CmdArgs> reader = CmdReader.of(CmdArgs.class);
 		
 		try {
 			args = reader.make(rawArgs);
 		} catch (InvalidCommandLineException e) {
-			System.err.println(e.getMessage());
-			System.err.println(reader.generateCommandLineHelp("java -jar lombok.ast.jar"));
-			System.exit(1);
-			return;
+			stderr.println(e.getMessage());
+			stderr.println(reader.generateCommandLineHelp("java -jar lombok.ast.jar"));
+			return 1;
 		}
 		
 		if (args.help) {
-			System.out.println("lombok.ast java AST tool " + Version.getVersion());
-			System.out.println(reader.generateCommandLineHelp("java -jar lombok.ast.jar"));
-			System.exit(0);
-			return;
+			stdout.println("lombok.ast java AST tool " + Version.getVersion());
+			stdout.println(reader.generateCommandLineHelp("java -jar lombok.ast.jar"));
+			return 0;
 		}
 		
 		if (args.version) {
-			System.out.println(Version.getVersion());
-			System.exit(0);
-			return;
+			stdout.println(Version.getVersion());
+			return 0;
+		}
+		
+		if (args.daemon != 0) {
+			if (inDaemon) {
+				stderr.println("--daemon can't be used in a request sent to a daemon");
+				return 1;
+			}
+			new Daemon(args.daemon).serve(stderr);
+			return 0;
 		}
 		
 		try {
 			Charset charset = args.encoding == null ? Charset.defaultCharset() : Charset.forName(args.encoding);
-			Main main = new Main(charset, args.verbose, args.normalize, !args.noPositions, args.saveIntermediate);
+			Main main = new Main(charset, new SourceLoader(charset), args.verbose, args.normalize, !args.noPositions, args.saveIntermediate, stdout, stderr);
 			main.compile(args.program);
+			main.setThreads(args.threads);
+			if (args.cache != null && !args.saveIntermediate) main.setCache(resolve(workingDir, args.cache), args.cacheSize * 1024L * 1024L, args.program);
+			if (args.profileGrammar != null) main.setGrammarProfileReport(resolve(workingDir, args.profileGrammar));
+			if (args.stats || args.statsJson != null) main.setStatistics(args.stats, args.statsJson == null ? null : resolve(workingDir, args.statsJson));
 			if (!args.print) {
-				File targetDir = new File(args.target);
+				File targetDir = resolve(workingDir, args.target);
 				if (!targetDir.exists()) targetDir.mkdirs();
 				if (!targetDir.isDirectory()) {
-					System.err.printf("%s is not a directory or cannot be created\n", targetDir.getCanonicalPath());
-					System.exit(1);
-					return;
+					stderr.printf("%s is not a directory or cannot be created\n", targetDir.getCanonicalPath());
+					return 1;
 				}
 				main.setOutputDir(targetDir);
 			}
+			if (args.incremental) {
+				if (args.print || args.saveIntermediate) throw new IllegalArgumentException("--incremental can't be combined with --print or --save-intermediate");
+				main.setIncremental(args.program);
+			}
 			
 			for (String input : args.input) {
-				main.addToQueue(input);
+				main.addToQueue(resolve(workingDir, input));
 			}
 			
-			main.go();
+			return main.go();
 		} catch (IllegalArgumentException e) {
-			System.err.println(e.getMessage());
-			System.exit(1);
-			return;
+			stderr.println(e.getMessage());
+			return 1;
 		}
 	}
 	
-	private void go() throws IOException {
-		for (Plan p : files) {
-			process(p.getFile(), outDir, p.getRelativeName());
+	private static File resolve(File workingDir, String path) {
+		File f = new File(path);
+		return f.isAbsolute() ? f : new File(workingDir, path);
+	}
+	
+	private int go() throws IOException, InterruptedException {
+		if (statistics != null) statistics.start();
+		startPipeline();
+		ExecutorService reader = Executors.newSingleThreadExecutor();
+		try {
+			List<Plan> plans = files;
+			if (manifest != null) {
+				plans = Lists.newArrayList();
+				for (Plan p : files) if (!manifest.isUnchanged(p.getRelativeName(), p.getFile())) plans.add(p);
+			}
+			
+			/* Files are read on a background thread, up to READ_AHEAD files ahead of the one being processed. */
+			LinkedList<Future<ReadFile>> pending = new LinkedList<Future<ReadFile>>();
+			Iterator<Plan> toRead = plans.iterator();
+			for (Plan p : plans) {
+				while (pending.size() < READ_AHEAD && toRead.hasNext()) pending.add(reader.submit(read(toRead.next().getFile())));
+				ReadFile source = contentOf(pending.removeFirst());
+				if (manifest != null && !manifest.update(p.getRelativeName(), source.getSize(), source.getLastModified(), source.getContent())) continue;
+				process(p.getFile(), source.getContent(), outDir, p.getRelativeName());
+			}
+		} finally {
+			reader.shutdownNow();
+			finishPipeline();
 		}
-		if (errors > 0) {
-			System.err.printf("%d errors\n", errors);
+		
+		if (statistics != null) statistics.finish();
+		if (manifest != null) finishIncremental();
+		if (statistics != null) writeStatistics();
+		if (grammarProfile != null) writeGrammarProfile();
+		if (cache != null) stderr.println(cache.getStatistics());
+		if (errors.get() > 0) {
+			stderr.printf("%d errors\n", errors.get());
 		}
-		System.exit(errors > 0 ? 2 : 0);
+		return errors.get() > 0 ? 2 : 0;
 	}
 	
 	private void setOutputDir(File f) {
 		this.outDir = f;
 	}
 	
-	private void addToQueue(String item) throws IOException {
-		addToQueue0(new File(item), "");
+	private void setThreads(int threads) {
+		if (threads < 1) throw new IllegalArgumentException("The number of threads must be at least 1");
+		this.threads = threads;
+	}
+	
+	private static final int READ_AHEAD = 16;
+	
+	/**
+	 * The content of a file, with the size and last modified time it had before it was read. If the file changes while it is being read,
+	 * the next incremental run sees a different size or time and reads it again.
+	 */
+	@Data
+	private static class ReadFile {
+		final String content;
+		final long size;
+		final long lastModified;
+	}
+	
+	private Callable<ReadFile> read(final File file) {
+		return new Callable<ReadFile>() {
+			@Override public ReadFile call() throws IOException {
+				long size = file.length();
+				long lastModified = file.lastModified();
+				if (statistics == null) return new ReadFile(loader.load(file), size, lastModified);
+				long start = System.nanoTime();
+				String content = loader.load(file);
+				statistics.recordRead(size, System.nanoTime() - start);
+				return new ReadFile(content, size, lastModified);
+			}
+		};
+	}
+	
+	private static ReadFile contentOf(Future<ReadFile> content) throws IOException {
+		try {
+			return content.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while reading source files");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) throw (IOException) cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new IOException(cause.toString());
+		}
+	}
+	
+	private void setCache(File directory, long maxSize, String program) throws IOException {
+		this.cache = OutputCache.open(directory, maxSize);
+		this.cacheOptions = describeOptions(program);
+	}
+	
+	private void setIncremental(String program) throws IOException {
+		this.manifest = new IncrementalManifest(outDir, describeOptions(program) + " " + charset.name());
+	}
+	
+	/**
+	 * Returns a description of the program and of all options that change the output of a conversion.
+	 */
+	private String describeOptions(String program) {
+		return program + (normalize ? " normalize" : "") + (positions ? "" : " no-positions");
+	}
+	
+	/**
+	 * Drops files that failed to convert from the manifest, so the next run tries them again, deletes the output of sources that are gone,
+	 * and saves the manifest.
+	 */
+	private void finishIncremental() throws IOException {
+		for (Plan p : files) {
+			if (failed.contains(new File(outDir, p.getRelativeName()))) manifest.forget(p.getRelativeName());
+		}
+		
+		for (String removed : manifest.getRemoved()) {
+			File f = new File(outDir, removed);
+			if (verbose) stdout.printf("Removing: %s\n", f.getCanonicalPath());
+			if (f.exists() && !f.delete()) {
+				stderr.printf("Can't delete: %s\n", f.getCanonicalPath());
+				errors.incrementAndGet();
+			}
+		}
+		
+		manifest.save();
+		if (verbose) stdout.println(manifest.getStatistics());
+	}
+	
+	private void setStatistics(boolean print, File jsonReport) {
+		this.statistics = new RunStatistics(stepNames);
+		this.printStatistics = print;
+		this.statisticsReport = jsonReport;
+	}
+	
+	private void writeStatistics() throws IOException {
+		if (printStatistics) {
+			StringBuilder report = new StringBuilder();
+			statistics.writeReport(report);
+			stderr.print(report);
+		}
+		if (statisticsReport != null) {
+			StringBuilder json = new StringBuilder();
+			statistics.writeJson(json);
+			Files.write(json, statisticsReport, Charset.forName("UTF-8"));
+			if (verbose) stdout.printf("Statistics written to: %s\n", statisticsReport.getCanonicalPath());
+		}
+	}
+	
+	private void setGrammarProfileReport(File f) {
+		this.grammarProfile = new GrammarProfile();
+		this.grammarProfileReport = f;
+	}
+	
+	private void writeGrammarProfile() throws IOException {
+		StringBuilder report = new StringBuilder();
+		if (grammarProfileReport.getName().endsWith(".csv")) grammarProfile.writeCsv(report);
+		else grammarProfile.writeReport(report, -1);
+		Files.write(report, grammarProfileReport, charset);
+		if (verbose) stdout.printf("Grammar profile written to: %s\n", grammarProfileReport.getCanonicalPath());
+	}
+	
+	private void addToQueue(File item) throws IOException {
+		addToQueue0(item, "");
 	}
 	
 	private void addToQueue0(File f, String pathSoFar) throws IOException {
@@ -205,58 +432,219 @@ public class Main {
 		final String relativeName;
 	}
 	
-	private void process(File in, File outDir, String relativeName) throws IOException {
+	/**
+	 * Each operation of the program runs as a stage with its own pool of {@code threads} workers. A file is handed from stage to stage,
+	 * so different files can be in different stages at the same time, while each file holds on to no more than the tree it is currently
+	 * at. Stage queues are bounded; a stage that gets ahead of the next one waits for it. All output is written by a separate writer thread.
+	 */
+	private void startPipeline() {
+		stages = Lists.newArrayList();
+		for (int i = 0; i < program.size(); i++) stages.add(boundedExecutor(threads));
+		writer = boundedExecutor(1);
+	}
+	
+	private void finishPipeline() throws InterruptedException {
+		/* A stage only ever hands work to later stages, so once a stage has terminated, the next one won't receive any more work. */
+		for (ExecutorService stage : stages) {
+			stage.shutdown();
+			stage.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+		}
+		writer.shutdown();
+		writer.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+	}
+	
+	private static ExecutorService boundedExecutor(int threads) {
+		return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(STAGE_QUEUE_SIZE), WAIT_FOR_ROOM);
+	}
+	
+	private static final int STAGE_QUEUE_SIZE = 16;
+	
+	private static final RejectedExecutionHandler WAIT_FOR_ROOM = new RejectedExecutionHandler() {
+		@Override public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+			if (executor.isShutdown()) throw new RejectedExecutionException("Pipeline stage has already been shut down");
+			try {
+				executor.getQueue().put(r);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException(e);
+			}
+		}
+	};
+	
+	private void process(File in, String content, File outDir, String relativeName) throws IOException {
 		File out = outDir == null ? null : new File(outDir, relativeName);
 		
 		if (verbose && !saveIntermediate) {
-			System.out.printf("Processing: %s to %s\n", in.getCanonicalPath(), out == null ? "sysout" : out.getCanonicalPath());
+			stdout.printf("Processing: %s to %s\n", in.getCanonicalPath(), out == null ? "sysout" : out.getCanonicalPath());
 		}
 		
-		Source source = new Source(Files.toString(in, charset), in.getCanonicalPath());
-		Object transfer = null;
-		String chain = "/";
+		String cacheKey = null;
+		if (cache != null) {
+			cacheKey = OutputCache.keyFor(cacheOptions, content);
+			String cached = cache.get(cacheKey);
+			if (cached != null && out != null) {
+				emit(out, cached);
+				return;
+			}
+			if (cached != null) {
+				/* Printed results have to come out in order, so a cache hit still passes through every stage, behind the files before it. */
+				Job job = new Job(new Source(content, in.getCanonicalPath()), out, relativeName, null);
+				job.cached = cached;
+				stages.get(0).execute(job);
+				return;
+			}
+		}
 		
-		try {
-			for (Operation<Object, Object> programElem : program) {
-				transfer = programElem.process(source, transfer);
-				
-				if (saveIntermediate) {
-					if (!"/".equals(chain)) {
-						chain += "-";
-					}
-					chain += getDestinationType(programElem);
-					File intermediate = new File(outDir.getCanonicalPath() + chain + "/" + relativeName);
-					intermediate.getParentFile().mkdirs();
-					
-					if (verbose) {
-						System.out.printf("Processing: %s to %s\n", in.getCanonicalPath(), intermediate.getCanonicalPath());
-					}
-					
-					if (TO_JAVAC.contains(programElem)) {
-						Files.write(javacToText.process(source, (JCCompilationUnit) transfer).toString(), intermediate, charset);
-					}
-					else if (TO_ECJ.contains(programElem)) {
-						Files.write(ecjToText.process(source, (CompilationUnitDeclaration) transfer).toString(), intermediate, charset);
-					}
-					else if (TO_LOMBOK.contains(programElem)) {
-						Files.write(lombokToText.process(source, (Node) transfer).toString(), intermediate, charset);
-					}
-				}
+		stages.get(0).execute(new Job(new Source(content, in.getCanonicalPath()), out, relativeName, cacheKey));
+	}
+	
+	/**
+	 * One file on its way through the pipeline. Only the result of the most recent stage is kept.
+	 */
+	@RequiredArgsConstructor
+	private final class Job implements Runnable {
+		private final Source source;
+		private final File out;
+		private final String relativeName;
+		private final String cacheKey;
+		private String cached = null;
+		private Object transfer = null;
+		private String chain = "/";
+		private int step = 0;
+		private long nanos, nodes;
+		
+		/**
+		 * Any throwable counts as a failed conversion, errors included: a stage worker that dies of, say, a {@code StackOverflowError} on a
+		 * deeply nested expression would otherwise lose the file without a trace in this run's output or exit code.
+		 */
+		@Override public void run() {
+			try {
+				runStep();
+			} catch (ConversionProblem cp) {
+				stderr.printf("Can't convert: %s due to %s\n", source.getName(), cp.getMessage());
+				errors.incrementAndGet();
+				if (out != null) failed.add(out);
+			} catch (Throwable t) {
+				stderr.printf("Error during convert: %s\n%s\n", source.getName(), printEx(t));
+				errors.incrementAndGet();
+				if (out != null) failed.add(out);
+			}
+		}
+		
+		private void runStep() throws ConversionProblem {
+			if (cached != null) {
+				if (++step < program.size()) stages.get(step).execute(this);
+				else emit(out, cached);
+				return;
+			}
+			
+			Operation<Object, Object> programElem = program.get(step);
+			long start = statistics == null ? 0 : System.nanoTime();
+			long allocated = statistics == null ? 0 : RunStatistics.allocatedBytes();
+			transfer = programElem.process(source, transfer);
+			if (statistics != null) recordStep(System.nanoTime() - start, allocated);
+			if (saveIntermediate) saveIntermediate(programElem);
+			
+			if (++step < program.size()) {
+				stages.get(step).execute(this);
+				return;
 			}
 			
-			if (out == null) {
-				System.out.println(transfer);
-			} else if (!saveIntermediate) {
-				out.getParentFile().mkdirs();
-				Files.write(transfer.toString(), out, charset);
+			if (statistics != null) statistics.recordFile(source.getName(), nanos, nodes);
+			if (out == null || !saveIntermediate) {
+				String result = transfer.toString();
+				transfer = null;
+				if (cacheKey != null) store(cacheKey, result);
+				emit(out, result);
+			}
+		}
+		
+		private void recordStep(long stepNanos, long allocatedBefore) {
+			long allocated = allocatedBefore < 0 ? -1 : RunStatistics.allocatedBytes() - allocatedBefore;
+			statistics.recordStep(step, stepNanos, allocated);
+			nanos += stepNanos;
+			/* Nodes are counted once, in the first lombok.ast tree of the file. */
+			if (nodes == 0 && transfer instanceof Node) nodes = RunStatistics.countNodes((Node) transfer);
+		}
+		
+		private void saveIntermediate(Operation<Object, Object> programElem) throws ConversionProblem {
+			if (!"/".equals(chain)) {
+				chain += "-";
+			}
+			chain += getDestinationType(programElem);
+			File intermediate = new File(outDir, chain + "/" + relativeName);
+			
+			if (verbose) {
+				stdout.printf("Processing: %s to %s\n", source.getName(), intermediate.getAbsolutePath());
+			}
+			
+			if (TO_JAVAC.contains(programElem)) {
+				write(intermediate, javacToText.process(source, (JCCompilationUnit) transfer).toString());
+			}
+			else if (TO_ECJ.contains(programElem)) {
+				write(intermediate, ecjToText.process(source, (CompilationUnitDeclaration) transfer).toString());
 			}
-		} catch (ConversionProblem cp) {
-			System.err.printf("Can't convert: %s due to %s\n", in.getCanonicalPath(), cp.getMessage());
-			errors++;
-		} catch (RuntimeException e) {
-			System.err.printf("Error during convert: %s\n%s\n", in.getCanonicalPath(), printEx(e));
-			errors++;
+			else if (TO_LOMBOK.contains(programElem)) {
+				write(intermediate, lombokToText.process(source, (Node) transfer).toString());
+			}
+		}
+	}
+	
+	/**
+	 * Prints {@code result} to standard output if {@code out} is {@code null}, and writes it to {@code out} otherwise.
+	 */
+	private void emit(File out, final String result) {
+		if (out != null) {
+			write(out, result);
+			return;
 		}
+		
+		writer.execute(new Runnable() {
+			@Override public void run() {
+				try {
+					stdout.println(result);
+				} catch (Throwable t) {
+					stderr.printf("Can't print result due to %s\n", printEx(t));
+					errors.incrementAndGet();
+				}
+			}
+		});
+	}
+	
+	private void store(final String cacheKey, final String result) {
+		writer.execute(new Runnable() {
+			@Override public void run() {
+				try {
+					cache.put(cacheKey, result);
+				} catch (IOException e) {
+					stderr.printf("Can't store result in cache due to %s\n", e.getMessage());
+				} catch (Throwable t) {
+					stderr.printf("Can't store result in cache due to %s\n", printEx(t));
+					errors.incrementAndGet();
+				}
+			}
+		});
+	}
+	
+	private void write(final File file, final String content) {
+		writer.execute(new Runnable() {
+			@Override public void run() {
+				try {
+					long start = System.nanoTime();
+					file.getParentFile().mkdirs();
+					Files.write(content, file, charset);
+					if (statistics != null) statistics.recordWrite(System.nanoTime() - start);
+				} catch (IOException e) {
+					stderr.printf("Can't write: %s due to %s\n", file.getAbsolutePath(), e.getMessage());
+					errors.incrementAndGet();
+					failed.add(file);
+				} catch (Throwable t) {
+					stderr.printf("Can't write: %s due to %s\n", file.getAbsolutePath(), printEx(t));
+					errors.incrementAndGet();
+					failed.add(file);
+				}
+			}
+		});
 	}
 	
 	private String getDestinationType(Operation<Object, Object> operation) {
@@ -277,6 +665,19 @@ public class Main {
 	
 	private void compile(String program) {
 		this.program = compile0(program);
+		this.stepNames = stepNames(program);
+	}
+	
+	/**
+	 * Names each step of the program after what it produces, prefixed with its input for conversions; for example {@code lombok},
+	 * {@code lombok>ecj}.
+	 */
+	private static List<String> stepNames(String program) {
+		String[] parts = program.split("\\s*,\\s*");
+		List<String> out = Lists.newArrayList();
+		out.add(parts[0]);
+		for (int i = 0; i < parts.length - 1; i++) out.add(parts[i] + ">" + parts[i + 1]);
+		return out;
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -322,13 +723,29 @@ public class Main {
 	}
 	
 	private final Charset charset;
+	private final SourceLoader loader;
 	private List<Operation<Object, Object>> program;
+	private List<String> stepNames;
 	private final boolean verbose;
 	private final boolean normalize;
 	private final boolean positions;
 	private final boolean saveIntermediate;
-	private int errors;
+	private final PrintStream stdout, stderr;
+	private final AtomicInteger errors = new AtomicInteger();
+	/* Outputs that could not be produced because their conversion or the write failed. */
+	private final Set<File> failed = Collections.newSetFromMap(new ConcurrentHashMap<File, Boolean>());
+	private int threads = 1;
+	private List<ExecutorService> stages;
+	private ExecutorService writer;
 	private File outDir = null;
+	private GrammarProfile grammarProfile = null;
+	private OutputCache cache = null;
+	private String cacheOptions = null;
+	private IncrementalManifest manifest = null;
+	private RunStatistics statistics = null;
+	private boolean printStatistics;
+	private File statisticsReport = null;
+	private File grammarProfileReport = null;
 	private final List<Plan> files = Lists.newArrayList();
 	
 	private interface Operation<A, B> {
@@ -341,7 +758,7 @@ public class Main {
 		}
 	}
 	
-	protected CompilerOptions ecjCompilerOptions() {
+	private static CompilerOptions ecjCompilerOptions() {
 		CompilerOptions options = new CompilerOptions();
 		options.complianceLevel = ClassFileConstants.JDK1_6;
 		options.sourceLevel = ClassFileConstants.JDK1_6;
@@ -350,8 +767,97 @@ public class Main {
 		return options;
 	}
 	
+	/**
+	 * The javac and ecj front-end objects used by the operations. Setting these up costs far more than parsing a typical file, so sets are
+	 * kept in a pool shared by all runs in this VM, which lets a daemon reuse them across requests. An operation takes a set out of the pool
+	 * for as long as it needs it. A set is dropped after {@code FRONT_END_REUSE_LIMIT} uses, as javac keeps per-file data (such as names and
+	 * end position tables) around for as long as its context lives.
+	 */
+	private static final class FrontEnds {
+		private final Charset charset;
+		private int uses;
+		private JavaCompiler javaCompiler;
+		private Context treeBuilderContext;
+		private CompilerOptions ecjOptions;
+		private Parser ecjParser;
+		private ProblemReporter ecjReporter, ecjSilentReporter;
+		
+		FrontEnds(Charset charset) {
+			this.charset = charset;
+		}
+		
+		JavaCompiler javaCompiler() {
+			if (javaCompiler == null) {
+				Context context = new Context();
+				Options.instance(context).put(OptionName.ENCODING, charset.name());
+				javaCompiler = new JavaCompiler(context);
+				javaCompiler.genEndPos = true;
+				javaCompiler.keepComments = true;
+			}
+			return javaCompiler;
+		}
+		
+		Context treeBuilderContext() {
+			if (treeBuilderContext == null) treeBuilderContext = JcTreeBuilder.createNewContext();
+			return treeBuilderContext;
+		}
+		
+		CompilerOptions ecjOptions() {
+			if (ecjOptions == null) ecjOptions = ecjCompilerOptions();
+			return ecjOptions;
+		}
+		
+		Parser ecjParser() {
+			if (ecjParser == null) {
+				ecjParser = new Parser(new ProblemReporter(
+						DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+						ecjOptions(),
+						new DefaultProblemFactory()
+					), ecjOptions().parseLiteralExpressionsAsConstants);
+				ecjParser.javadocParser.checkDocComment = true;
+			}
+			return ecjParser;
+		}
+		
+		ProblemReporter ecjReporter() {
+			if (ecjReporter == null) ecjReporter = EcjTreeBuilder.createDefaultProblemReporter(ecjOptions());
+			return ecjReporter;
+		}
+		
+		ProblemReporter ecjSilentReporter() {
+			if (ecjSilentReporter == null) ecjSilentReporter = EcjTreeBuilder.createSilentProblemReporter(ecjOptions());
+			return ecjSilentReporter;
+		}
+	}
+	
+	private static final int FRONT_END_REUSE_LIMIT = 500;
+	
+	/* Pooled sets per charset, so that runs with different encodings (as in a daemon) don't throw away each other's sets. */
+	private static final ConcurrentMap<Charset, Queue<FrontEnds>> FRONT_END_POOLS = new ConcurrentHashMap<Charset, Queue<FrontEnds>>();
+	
+	private static Queue<FrontEnds> frontEndPool(Charset charset) {
+		Queue<FrontEnds> pool = FRONT_END_POOLS.get(charset);
+		if (pool != null) return pool;
+		FRONT_END_POOLS.putIfAbsent(charset, new ConcurrentLinkedQueue<FrontEnds>());
+		return FRONT_END_POOLS.get(charset);
+	}
+	
+	private FrontEnds acquireFrontEnds() {
+		Queue<FrontEnds> pool = frontEndPool(charset);
+		FrontEnds f;
+		while ((f = pool.poll()) != null) {
+			if (f.uses++ < FRONT_END_REUSE_LIMIT) return f;
+		}
+		return new FrontEnds(charset);
+	}
+	
+	private static void releaseFrontEnds(FrontEnds f) {
+		frontEndPool(f.charset).offer(f);
+	}
+	
 	private final Operation<Void, Node> parseWithLombok = new Operation<Void, Node>() {
 		@Override public Node process(Source in, Void irrelevant) throws ConversionProblem {
+			if (grammarProfile != null) in.parseCompilationUnit(grammarProfile);
 			List<Node> nodes = in.getNodes();
 			List<ParseProblem> problems = in.getProblems();
 			if (problems.size() > 0) throw new ConversionProblem(String.format("Can't read file %s due to parse error: %s", in.getName(), problems.get(0)));
@@ -363,38 +869,35 @@ public class Main {
 	
 	private final Operation<Void, ASTNode> parseWithEcj = new Operation<Void, ASTNode>() {
 		@Override public ASTNode process(Source in, Void irrelevant) throws ConversionProblem {
-			CompilerOptions compilerOptions = ecjCompilerOptions();
-			Parser parser = new Parser(new ProblemReporter(
-					DefaultErrorHandlingPolicies.proceedWithAllProblems(),
-					compilerOptions,
-					new DefaultProblemFactory()
-				), compilerOptions.parseLiteralExpressionsAsConstants);
-			parser.javadocParser.checkDocComment = true;
-			CompilationUnit sourceUnit = new CompilationUnit(in.getRawInput().toCharArray(), in.getName(), charset.name());
-			CompilationResult compilationResult = new CompilationResult(sourceUnit, 0, 0, 0);
-			CompilationUnitDeclaration cud = parser.parse(sourceUnit, compilationResult);
-			
-			if (cud.hasErrors()) {
-				throw new ConversionProblem(String.format("Can't read file %s due to parse error: %s", in.getName(), compilationResult.getErrors()[0]));
+			FrontEnds frontEnds = acquireFrontEnds();
+			try {
+				Parser parser = frontEnds.ecjParser();
+				CompilationUnit sourceUnit = new CompilationUnit(in.getRawInput().toCharArray(), in.getName(), charset.name());
+				CompilationResult compilationResult = new CompilationResult(sourceUnit, 0, 0, 0);
+				CompilationUnitDeclaration cud = parser.parse(sourceUnit, compilationResult);
+				
+				if (cud.hasErrors()) {
+					throw new ConversionProblem(String.format("Can't read file %s due to parse error: %s", in.getName(), compilationResult.getErrors()[0]));
+				}
+				
+				return cud;
+			} finally {
+				releaseFrontEnds(frontEnds);
 			}
-			
-			return cud;
 		}
 	};
 	
 	private final Operation<Void, JCCompilationUnit> parseWithJavac = new Operation<Void, JCCompilationUnit>() {
 		@Override public JCCompilationUnit process(Source in, Void irrelevant) throws ConversionProblem {
-			Context context = new Context();
-			
-			Options.instance(context).put(OptionName.ENCODING, charset.name());
-			
-			JavaCompiler compiler = new JavaCompiler(context);
-			compiler.genEndPos = true;
-			compiler.keepComments = true;
-			
-			JCCompilationUnit cu = compiler.parse(new ContentBasedJavaFileObject(in.getName(), in.getRawInput()));
-			
-			return cu;
+			FrontEnds frontEnds = acquireFrontEnds();
+			try {
+				JavaCompiler compiler = frontEnds.javaCompiler();
+				JCCompilationUnit cu = compiler.parse(new ContentBasedJavaFileObject(in.getName(), in.getRawInput()));
+				
+				return cu;
+			} finally {
+				releaseFrontEnds(frontEnds);
+			}
 		}
 	};
 	
@@ -416,21 +919,32 @@ public class Main {
 	
 	private final Operation<Node, JCCompilationUnit> lombokToJavac = new Operation<Node, JCCompilationUnit>() {
 		@Override public JCCompilationUnit process(Source source, Node in) throws ConversionProblem {
-			JcTreeBuilder builder = new JcTreeBuilder();
-			builder.visit(in);
-			JCTree out = builder.get();
-			if (out instanceof JCCompilationUnit) return (JCCompilationUnit) out;
-			throw new ConversionProblem("result from lombokToJavac is not JCCompilationUnit");
+			FrontEnds frontEnds = acquireFrontEnds();
+			try {
+				JcTreeBuilder builder = new JcTreeBuilder(null, frontEnds.treeBuilderContext());
+				builder.visit(in);
+				JCTree out = builder.get();
+				if (out instanceof JCCompilationUnit) return (JCCompilationUnit) out;
+				throw new ConversionProblem("result from lombokToJavac is not JCCompilationUnit");
+			} finally {
+				releaseFrontEnds(frontEnds);
+			}
 		}
 	};
 	
 	private final Operation<Node, CompilationUnitDeclaration> lombokToEcj = new Operation<Node, CompilationUnitDeclaration>() {
 		@Override public CompilationUnitDeclaration process(Source source, Node in) throws ConversionProblem {
-			EcjTreeBuilder builder = new EcjTreeBuilder(source, ecjCompilerOptions());
-			builder.visit(in);
-			ASTNode out = builder.get();
-			if (out instanceof CompilationUnitDeclaration) return (CompilationUnitDeclaration) out;
-			throw new ConversionProblem("result from lombokToEcj is not CompilationUnitDeclaration");
+			FrontEnds frontEnds = acquireFrontEnds();
+			try {
+				EcjTreeBuilder builder = new EcjTreeBuilder(source, frontEnds.ecjReporter(), frontEnds.ecjSilentReporter(),
+						new CompilationResult(source.getName().toCharArray(), 0, 0, 0));
+				builder.visit(in);
+				ASTNode out = builder.get();
+				if (out instanceof CompilationUnitDeclaration) return (CompilationUnitDeclaration) out;
+				throw new ConversionProblem("result from lombokToEcj is not CompilationUnitDeclaration");
+			} finally {
+				releaseFrontEnds(frontEnds);
+			}
 		}
 	};
 	
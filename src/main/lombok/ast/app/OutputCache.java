@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.google.common.collect.Maps;
+import com.google.common.io.Files;
+
+/**
+ * A directory of previously computed program outputs, keyed on a hash of the source content, the lombok.ast version and the program
+ * (including any options that change the output). Entries are evicted least recently used first once the total size of the cache exceeds
+ * its limit; the order of use survives across runs as the last modified time of each entry. Only files named like a key are considered
+ * entries, so other files in the directory are never touched.
+ * 
+ * Instances are thread safe, and all runs in one VM (such as the requests of a daemon) share the instance for a directory, but a cache
+ * directory should not be used by more than one VM at a time.
+ */
+class OutputCache {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final Pattern KEY = Pattern.compile("[0-9a-f]{40}");
+	private static final Map<File, OutputCache> OPEN = Maps.newHashMap();
+	
+	private final File directory;
+	private long maxSize;
+	/* Maps each key to the size of its entry, in order of use: least recently used first. */
+	private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+	private long size;
+	private int hits, misses, evictions;
+	
+	private OutputCache(File directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+		loadIndex();
+	}
+	
+	/**
+	 * Returns the cache for {@code directory}, creating the directory if needed. If the cache is already open in this VM, that instance is
+	 * returned, with its maximum size changed to {@code maxSize}.
+	 */
+	static OutputCache open(File directory, long maxSize) throws IOException {
+		directory.mkdirs();
+		if (!directory.isDirectory()) throw new IOException("Can't create cache directory: " + directory.getCanonicalPath());
+		File canonical = directory.getCanonicalFile();
+		synchronized (OPEN) {
+			OutputCache cache = OPEN.get(canonical);
+			if (cache == null) {
+				cache = new OutputCache(canonical, maxSize);
+				OPEN.put(canonical, cache);
+			} else {
+				cache.setMaxSize(maxSize);
+			}
+			return cache;
+		}
+	}
+	
+	private synchronized void setMaxSize(long maxSize) {
+		this.maxSize = maxSize;
+		evict();
+	}
+	
+	private void loadIndex() {
+		File[] files = directory.listFiles();
+		if (files == null) return;
+		Arrays.sort(files, new Comparator<File>() {
+			@Override public int compare(File o1, File o2) {
+				long m1 = o1.lastModified(), m2 = o2.lastModified();
+				return m1 < m2 ? -1 : m1 > m2 ? +1 : 0;
+			}
+		});
+		for (File f : files) {
+			if (!f.isFile()) continue;
+			String name = f.getName();
+			if (name.endsWith(".tmp") && KEY.matcher(name.substring(0, name.length() - 4)).matches()) {
+				/* Left behind by a run that died while storing an entry. */
+				f.delete();
+				continue;
+			}
+			if (!KEY.matcher(name).matches()) continue;
+			entries.put(f.getName(), f.length());
+			size += f.length();
+		}
+	}
+	
+	/**
+	 * @param program A description of everything besides the source content that determines the output.
+	 */
+	static String keyFor(String program, String content) {
+		return sha1(lombok.ast.Version.getVersion(), program, content);
+	}
+	
+	/**
+	 * Returns the SHA-1 hash, in hex, of the UTF-8 encoding of {@code parts}, separated by zero bytes.
+	 */
+	static String sha1(String... parts) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-1 is a mandatory algorithm", e);
+		}
+		for (int i = 0; i < parts.length; i++) {
+			if (i > 0) digest.update((byte) 0);
+			digest.update(parts[i].getBytes(UTF_8));
+		}
+		byte[] hash = digest.digest();
+		char[] out = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			out[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+			out[i * 2 + 1] = HEX[hash[i] & 0xF];
+		}
+		return new String(out);
+	}
+	
+	/**
+	 * Returns the cached output for {@code key}, or {@code null} if there is none.
+	 */
+	synchronized String get(String key) {
+		if (entries.get(key) == null) {
+			misses++;
+			return null;
+		}
+		
+		File f = new File(directory, key);
+		try {
+			String result = Files.toString(f, UTF_8);
+			f.setLastModified(System.currentTimeMillis());
+			hits++;
+			return result;
+		} catch (IOException e) {
+			/* Someone removed or damaged the entry; forget about it. */
+			remove(key);
+			misses++;
+			return null;
+		}
+	}
+	
+	synchronized void put(String key, String output) throws IOException {
+		File tmp = new File(directory, key + ".tmp");
+		File f = new File(directory, key);
+		Files.write(output, tmp, UTF_8);
+		if (!tmp.renameTo(f)) {
+			f.delete();
+			if (!tmp.renameTo(f)) {
+				tmp.delete();
+				throw new IOException("Can't store cache entry: " + f.getCanonicalPath());
+			}
+		}
+		
+		Long old = entries.put(key, f.length());
+		if (old != null) size -= old;
+		size += f.length();
+		evict();
+	}
+	
+	private void evict() {
+		Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+		while (size > maxSize && it.hasNext()) {
+			Map.Entry<String, Long> eldest = it.next();
+			new File(directory, eldest.getKey()).delete();
+			size -= eldest.getValue();
+			it.remove();
+			evictions++;
+		}
+	}
+	
+	private void remove(String key) {
+		Long old = entries.remove(key);
+		if (old != null) size -= old;
+		new File(directory, key).delete();
+	}
+	
+	synchronized String getStatistics() {
+		int lookups = hits + misses;
+		return String.format("Cache: %d hits, %d misses (%.1f%% hit rate), %d evicted, %d entries using %d bytes",
+				hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups, evictions, entries.size(), size);
+	}
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.app;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import lombok.Data;
+import lombok.ast.ForwardingAstVisitor;
+import lombok.ast.Node;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Collects where the time of a run goes: latency per program step and for reading and writing files, throughput in bytes and nodes per
+ * second, garbage collector activity, and the files that took longest to convert. Collecting these adds a little work to every step, so
+ * it is only done if asked for.
+ * <p>
+ * Instances are thread safe.
+ */
+class RunStatistics {
+	private static final int SLOWEST_FILES = 10;
+	
+	private final List<Timer> steps = Lists.newArrayList();
+	private final Timer read = new Timer("read"), write = new Timer("write");
+	private final PriorityQueue<FileTime> slowest = new PriorityQueue<FileTime>(SLOWEST_FILES + 1, FileTime.BY_NANOS);
+	private final Map<String, long[]> gcAtStart = Maps.newLinkedHashMap();
+	private final Map<String, long[]> gc = Maps.newLinkedHashMap();
+	private long startNanos, wallNanos;
+	private long bytesRead, nodes;
+	private int files;
+	
+	/**
+	 * A histogram of durations, with buckets that double in size: bucket {@code i} counts durations of less than 2<sup>i</sup> microseconds
+	 * that don't fit in bucket {@code i - 1}.
+	 */
+	private static class Timer {
+		final String name;
+		final long[] buckets = new long[40];
+		long count, totalNanos, maxNanos, allocatedBytes;
+		
+		Timer(String name) {
+			this.name = name;
+		}
+		
+		synchronized void record(long nanos, long allocated) {
+			count++;
+			totalNanos += nanos;
+			maxNanos = Math.max(maxNanos, nanos);
+			if (allocated > 0) allocatedBytes += allocated;
+			buckets[Math.min(buckets.length - 1, 64 - Long.numberOfLeadingZeros(nanos / 1000))]++;
+		}
+		
+		/**
+		 * Returns the upper bound, in microseconds, of the bucket that holds the given percentile.
+		 */
+		synchronized long percentileMicros(double percentile) {
+			long rank = (long) Math.ceil(count * percentile / 100.0);
+			long seen = 0;
+			for (int i = 0; i < buckets.length; i++) {
+				seen += buckets[i];
+				if (seen >= rank && seen > 0) return 1L << i;
+			}
+			return 0;
+		}
+	}
+	
+	@Data
+	private static class FileTime {
+		static final Comparator<FileTime> BY_NANOS = new Comparator<FileTime>() {
+			@Override public int compare(FileTime o1, FileTime o2) {
+				return o1.nanos < o2.nanos ? -1 : o1.nanos > o2.nanos ? +1 : 0;
+			}
+		};
+		
+		final String name;
+		final long nanos;
+		final long nodes;
+	}
+	
+	RunStatistics(List<String> stepNames) {
+		for (String name : stepNames) steps.add(new Timer(name));
+	}
+	
+	synchronized void start() {
+		startNanos = System.nanoTime();
+		snapshotGc(gcAtStart);
+	}
+	
+	synchronized void finish() {
+		wallNanos = System.nanoTime() - startNanos;
+		snapshotGc(gc);
+		for (Map.Entry<String, long[]> e : gc.entrySet()) {
+			long[] atStart = gcAtStart.get(e.getKey());
+			if (atStart == null) continue;
+			e.getValue()[0] -= atStart[0];
+			e.getValue()[1] -= atStart[1];
+		}
+	}
+	
+	private static void snapshotGc(Map<String, long[]> into) {
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			into.put(bean.getName(), new long[] {bean.getCollectionCount(), bean.getCollectionTime()});
+		}
+	}
+	
+	void recordStep(int step, long nanos, long allocatedBytes) {
+		steps.get(step).record(nanos, allocatedBytes);
+	}
+	
+	void recordRead(long bytes, long nanos) {
+		read.record(nanos, -1);
+		synchronized (this) {
+			bytesRead += bytes;
+		}
+	}
+	
+	void recordWrite(long nanos) {
+		write.record(nanos, -1);
+	}
+	
+	/**
+	 * Records a file that made it through all steps.
+	 * 
+	 * @param nodes The number of nodes in its lombok.ast tree, or {@code 0} if the program never builds one.
+	 */
+	synchronized void recordFile(String name, long nanos, long nodes) {
+		files++;
+		this.nodes += nodes;
+		slowest.add(new FileTime(name, nanos, nodes));
+		if (slowest.size() > SLOWEST_FILES) slowest.poll();
+	}
+	
+	static long countNodes(Node tree) {
+		final long[] count = {0};
+		tree.accept(new ForwardingAstVisitor() {
+			@Override public boolean visitNode(Node node) {
+				count[0]++;
+				return false;
+			}
+		});
+		return count[0];
+	}
+	
+	private static final Method THREAD_ALLOCATED_BYTES = findThreadAllocatedBytes();
+	
+	/* Allocation counters are a HotSpot extension that isn't available in every VM (or every Java 6 update), hence the reflection. */
+	private static Method findThreadAllocatedBytes() {
+		try {
+			Method m = ManagementFactory.getThreadMXBean().getClass().getMethod("getThreadAllocatedBytes", long.class);
+			m.setAccessible(true);
+			return m;
+		} catch (Exception e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Returns the number of bytes allocated so far by the current thread, or {@code -1} if the VM doesn't track this.
+	 */
+	static long allocatedBytes() {
+		if (THREAD_ALLOCATED_BYTES == null) return -1;
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			return (Long) THREAD_ALLOCATED_BYTES.invoke(bean, Thread.currentThread().getId());
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+	
+	private List<Timer> allTimers() {
+		List<Timer> out = Lists.newArrayList(read);
+		out.addAll(steps);
+		out.add(write);
+		return out;
+	}
+	
+	private List<FileTime> slowestFiles() {
+		List<FileTime> out = Lists.newArrayList(slowest);
+		Collections.sort(out, Collections.reverseOrder(FileTime.BY_NANOS));
+		return out;
+	}
+	
+	private double perSecond(long amount) {
+		return wallNanos == 0 ? 0.0 : amount * 1e9 / wallNanos;
+	}
+	
+	synchronized void writeReport(Appendable out) throws IOException {
+		out.append(String.format("Statistics: %d files in %.3f s, %.0f bytes/s, %.0f nodes/s\n",
+				files, wallNanos / 1e9, perSecond(bytesRead), perSecond(nodes)));
+		out.append(String.format("  %-16s %8s %10s %10s %10s %10s %10s %12s\n",
+				"step", "count", "total ms", "mean us", "p50 us", "p99 us", "max us", "allocated"));
+		for (Timer t : allTimers()) {
+			synchronized (t) {
+				out.append(String.format("  %-16s %8d %10.1f %10d %10d %10d %10d %12d\n",
+						t.name, t.count, t.totalNanos / 1e6, t.count == 0 ? 0 : t.totalNanos / t.count / 1000,
+						t.percentileMicros(50), t.percentileMicros(99), t.maxNanos / 1000, t.allocatedBytes));
+			}
+		}
+		for (Map.Entry<String, long[]> e : gc.entrySet()) {
+			out.append(String.format("  GC %s: %d collections, %d ms\n", e.getKey(), e.getValue()[0], e.getValue()[1]));
+		}
+		out.append("  Slowest files:\n");
+		for (FileTime f : slowestFiles()) {
+			out.append(String.format("    %10.1f ms %8d nodes  %s\n", f.getNanos() / 1e6, f.getNodes(), f.getName()));
+		}
+	}
+	
+	synchronized void writeJson(Appendable out) throws IOException {
+		out.append("{\n");
+		out.append(String.format(Locale.ROOT, "  \"files\": %d,\n  \"wallMillis\": %.3f,\n  \"bytesRead\": %d,\n  \"nodes\": %d,\n", files, wallNanos / 1e6, bytesRead, nodes));
+		out.append(String.format(Locale.ROOT, "  \"bytesPerSecond\": %.1f,\n  \"nodesPerSecond\": %.1f,\n", perSecond(bytesRead), perSecond(nodes)));
+		out.append("  \"steps\": [");
+		String sep = "\n";
+		for (Timer t : allTimers()) {
+			synchronized (t) {
+				out.append(sep).append(String.format(Locale.ROOT, "    {\"name\": %s, \"count\": %d, \"totalNanos\": %d, \"maxNanos\": %d, \"allocatedBytes\": %d, " +
+						"\"p50Micros\": %d, \"p90Micros\": %d, \"p99Micros\": %d, \"histogramMicros\": {",
+						quote(t.name), t.count, t.totalNanos, t.maxNanos, t.allocatedBytes,
+						t.percentileMicros(50), t.percentileMicros(90), t.percentileMicros(99)));
+				String bucketSep = "";
+				for (int i = 0; i < t.buckets.length; i++) {
+					if (t.buckets[i] == 0) continue;
+					out.append(bucketSep).append(String.format(Locale.ROOT, "\"%d\": %d", 1L << i, t.buckets[i]));
+					bucketSep = ", ";
+				}
+				out.append("}}");
+			}
+			sep = ",\n";
+		}
+		out.append("\n  ],\n  \"gc\": [");
+		sep = "\n";
+		for (Map.Entry<String, long[]> e : gc.entrySet()) {
+			out.append(sep).append(String.format(Locale.ROOT, "    {\"name\": %s, \"collections\": %d, \"millis\": %d}", quote(e.getKey()), e.getValue()[0], e.getValue()[1]));
+			sep = ",\n";
+		}
+		out.append("\n  ],\n  \"slowestFiles\": [");
+		sep = "\n";
+		for (FileTime f : slowestFiles()) {
+			out.append(sep).append(String.format(Locale.ROOT, "    {\"name\": %s, \"nanos\": %d, \"nodes\": %d}", quote(f.getName()), f.getNanos(), f.getNodes()));
+			sep = ",\n";
+		}
+		out.append("\n  ]\n}\n");
+	}
+	
+	private static String quote(String s) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (char c : s.toCharArray()) {
+			switch (c) {
+			case '"': sb.append("\\\""); break;
+			case '\\': sb.append("\\\\"); break;
+			case '\n': sb.append("\\n"); break;
+			case '\r': sb.append("\\r"); break;
+			case '\t': sb.append("\\t"); break;
+			default:
+				if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+				else sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+}
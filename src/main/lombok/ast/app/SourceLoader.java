@@ -0,0 +1,138 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.app;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import lombok.Cleanup;
+
+/**
+ * Reads source files into strings with as little copying as possible. Small files are read into a per-thread buffer and larger ones are
+ * memory mapped; either way the bytes are decoded straight into a per-thread {@code char[]}, from which the resulting string is copied.
+ * Pure ASCII content (by far the most common case for java sources) in an ASCII compatible charset is widened byte by byte without going
+ * through the charset decoder at all.
+ * 
+ * Malformed input is replaced, just like {@code new String(bytes, charset)} does.
+ * 
+ * Instances are thread safe.
+ */
+class SourceLoader {
+	private static final int MAP_THRESHOLD = 64 * 1024;
+	
+	private final Charset charset;
+	private final boolean asciiCompatible;
+	private final float maxCharsPerByte;
+	private final ThreadLocal<Buffers> buffers = new ThreadLocal<Buffers>() {
+		@Override protected Buffers initialValue() {
+			return new Buffers();
+		}
+	};
+	
+	SourceLoader(Charset charset) {
+		this.charset = charset;
+		this.asciiCompatible = isAsciiCompatible(charset);
+		this.maxCharsPerByte = charset.newDecoder().maxCharsPerByte();
+	}
+	
+	/**
+	 * Only charsets that are known to encode every ASCII character as that one byte, and to never use those bytes for anything else.
+	 * Some charsets (such as ISO-2022-JP) encode ASCII text as ASCII but use ASCII escape sequences to switch to another character set.
+	 */
+	private static boolean isAsciiCompatible(Charset charset) {
+		String name = charset.name();
+		return name.equals("UTF-8") || name.equals("US-ASCII") || name.startsWith("ISO-8859-") || name.startsWith("windows-125");
+	}
+	
+	String load(File file) throws IOException {
+		@Cleanup FileInputStream in = new FileInputStream(file);
+		FileChannel channel = in.getChannel();
+		long size = channel.size();
+		if (size > Integer.MAX_VALUE) throw new IOException("File too large: " + file.getCanonicalPath());
+		
+		ByteBuffer bytes;
+		if (size < MAP_THRESHOLD) {
+			bytes = buffers.get().bytes;
+			bytes.clear();
+			while (bytes.hasRemaining() && channel.read(bytes) != -1);
+			bytes.flip();
+		} else {
+			bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		
+		return decode(bytes);
+	}
+	
+	private String decode(ByteBuffer bytes) throws IOException {
+		Buffers b = buffers.get();
+		int length = bytes.remaining();
+		int start = bytes.position();
+		
+		char[] chars = b.chars((int) Math.ceil(length * (double) maxCharsPerByte) + 1);
+		int ascii = 0;
+		if (asciiCompatible) {
+			while (ascii < length) {
+				byte x = bytes.get(start + ascii);
+				if (x < 0) break;
+				chars[ascii++] = (char) x;
+			}
+			if (ascii == length) return new String(chars, 0, length);
+		}
+		
+		CharsetDecoder decoder = b.decoder(charset);
+		CharBuffer out = CharBuffer.wrap(chars);
+		bytes.position(start + ascii);
+		out.position(ascii);
+		CoderResult result = decoder.decode(bytes, out, true);
+		if (result.isUnderflow()) result = decoder.flush(out);
+		if (!result.isUnderflow()) result.throwException();
+		return new String(chars, 0, out.position());
+	}
+	
+	private static class Buffers {
+		final ByteBuffer bytes = ByteBuffer.allocateDirect(MAP_THRESHOLD);
+		private char[] chars = new char[MAP_THRESHOLD];
+		private CharsetDecoder decoder;
+		
+		char[] chars(int size) {
+			if (chars.length < size) chars = new char[Math.max(size, chars.length * 2)];
+			return chars;
+		}
+		
+		CharsetDecoder decoder(Charset charset) {
+			if (decoder == null || !decoder.charset().equals(charset)) {
+				decoder = charset.newDecoder()
+						.onMalformedInput(CodingErrorAction.REPLACE)
+						.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			}
+			return decoder.reset();
+		}
+	}
+}
@@ -21,7 +21,6 @@
  */
 package lombok.ast.grammar;
 
-import lombok.ast.Comment;
 import lombok.ast.Identifier;
 import lombok.ast.Node;
 import lombok.ast.Position;
@@ -31,39 +30,19 @@ public class BasicsActions extends SourceActions {
 		super(source);
 	}
 	
-	public Node createIdentifier(String text, org.parboiled.Node<Node> rawIdentifier) {
+	public Node createIdentifier(org.parboiled.Node<Node> rawIdentifier) {
 		Identifier id = new Identifier();
-		if (text != null) id.astValue(text);
+		if (rawIdentifier == null) return id;
 		
 		int start = rawIdentifier.getStartIndex();
 		int end = Math.max(start, rawIdentifier.getEndIndex());
+		id.astValue(source.internText(start, end));
 		id.setPosition(new Position(start, end));
 		return id;
 	}
 	
-	public boolean checkIfKeyword(String text) {
-		return text == null || !BasicsParser.KEYWORDS.contains(text);
-	}
-	
-	public boolean logComment(String text) {
-		if (text.startsWith("//")) return logLineComment(text);
-		else return logBlockComment(text);
-	}
-	
-	public boolean logBlockComment(String text) {
-		if (text.startsWith("/*")) text = text.substring(2);
-		if (text.endsWith("*/")) text = text.substring(0, text.length() - 2);
-		Comment c = new Comment().astBlockComment(true).astContent(text);
-		c.setPosition(new Position(startPos(), currentPos()));
-		source.registerComment(getContext(), c);
-		return true;
-	}
-	
-	public boolean logLineComment(String text) {
-		if (text.startsWith("//")) text = text.substring(2);
-		Comment c = new Comment().astBlockComment(false).astContent(text);
-		c.setPosition(new Position(startPos(), currentPos()));
-		source.registerComment(getContext(), c);
+	public boolean logComment() {
+		source.registerComment(startPos(), currentPos());
 		return true;
 	}
 }
@@ -33,6 +33,8 @@ import org.parboiled.Rule;
 import org.parboiled.annotations.SuppressSubnodes;
 import org.parboiled.matchers.CharSetMatcher;
 import org.parboiled.support.Characters;
+import org.parboiled.support.Chars;
+import org.parboiled.support.InputBuffer;
 
 /**
  * Contains the basics of java parsing: Whitespace and comment handling, as well as applying backslash-u escapes.
@@ -50,7 +52,7 @@ public class BasicsParser extends BaseParser<Node> {
 	 * Eats up any whitespace and comments at the current position.
 	 */
 	public Rule optWS() {
-		return ZeroOrMore(FirstOf(comment(), whitespaceChar())).label("ws");
+		return ZeroOrMore(FirstOf(comment(), whitespaceRun())).label("ws");
 	}
 	
 	/**
@@ -58,7 +60,7 @@ public class BasicsParser extends BaseParser<Node> {
 	 * but only matches if there is at least one comment or whitespace character to gobble up.
 	 */
 	public Rule mandatoryWS() {
-		return OneOrMore(FirstOf(comment(), whitespaceChar())).label("ws");
+		return OneOrMore(FirstOf(comment(), whitespaceRun())).label("ws");
 	}
 	
 	public Rule testLexBreak() {
@@ -68,8 +70,7 @@ public class BasicsParser extends BaseParser<Node> {
 	public Rule identifier() {
 		return Sequence(
 				identifierRaw().label("identifier"),
-				actions.checkIfKeyword(text("identifier")),
-				set(actions.createIdentifier(text("identifier"), node("identifier"))),
+				set(actions.createIdentifier(node("identifier"))),
 				optWS());
 	}
 	
@@ -77,8 +78,7 @@ public class BasicsParser extends BaseParser<Node> {
 		return Sequence(
 				Ch('.'), optWS(),
 				identifierRaw().label("identifier"),
-				actions.checkIfKeyword(text("identifier")),
-				set(actions.createIdentifier(text("identifier"), node("identifier"))),
+				set(actions.createIdentifier(node("identifier"))),
 				optWS());
 	}
 	
@@ -97,9 +97,40 @@ public class BasicsParser extends BaseParser<Node> {
 			"public", "private", "protected"
 	));
 	
+	/**
+	 * Keywords bucketed by length, so that a candidate only needs to be compared against the handful of keywords of the same length.
+	 */
+	private static final char[][][] KEYWORDS_BY_LENGTH;
+	static {
+		int max = 0;
+		for (String keyword : KEYWORDS) max = Math.max(max, keyword.length());
+		int[] counts = new int[max + 1];
+		for (String keyword : KEYWORDS) counts[keyword.length()]++;
+		KEYWORDS_BY_LENGTH = new char[max + 1][][];
+		for (int i = 0; i <= max; i++) KEYWORDS_BY_LENGTH[i] = new char[counts[i]][];
+		for (String keyword : KEYWORDS) KEYWORDS_BY_LENGTH[keyword.length()][--counts[keyword.length()]] = keyword.toCharArray();
+	}
+	
+	/**
+	 * Checks if the characters between {@code start} (inclusive) and {@code end} (exclusive) form a keyword, without creating a string.
+	 */
+	static boolean isKeyword(InputBuffer input, int start, int end) {
+		int length = end - start;
+		if (length < 2 || length >= KEYWORDS_BY_LENGTH.length) return false;
+		char first = input.charAt(start);
+		if (first < 'a' || first > 'z') return false;
+		outer:
+		for (char[] keyword : KEYWORDS_BY_LENGTH[length]) {
+			if (keyword[0] != first) continue;
+			for (int i = 1; i < length; i++) if (keyword[i] != input.charAt(start + i)) continue outer;
+			return true;
+		}
+		return false;
+	}
+	
 	@SuppressSubnodes
 	public Rule identifierRaw() {
-		return Sequence(new JavaIdentifierStartMatcher(), ZeroOrMore(new JavaIdentifierPartMatcher()));
+		return new JavaIdentifierMatcher();
 	}
 	
 	public Rule identifierPart() {
@@ -122,22 +153,87 @@ public class BasicsParser extends BaseParser<Node> {
 		}
 	}
 	
-	private static class JavaIdentifierStartMatcher extends CharSetMatcher<Node> {
-		public JavaIdentifierStartMatcher() {
+	/**
+	 * Matches an identifier start character followed by any number of identifier part characters, creating a single node for the lot.
+	 */
+	private static class JavaIdentifierMatcher extends CharSetMatcher<Node> {
+		public JavaIdentifierMatcher() {
 			super(Characters.of("abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ_$"));
 		}
 		
 		@Override public boolean match(MatcherContext<Node> context) {
-			char current = context.getCurrentChar();
-			if (Character.isJavaIdentifierStart(current)) {
+			if (!Character.isJavaIdentifierStart(context.getCurrentChar())) return false;
+			InputBuffer input = context.getInputBuffer();
+			int start = context.getCurrentIndex();
+			int end = start + 1;
+			while (Character.isJavaIdentifierPart(input.charAt(end))) end++;
+			if (isKeyword(input, start, end)) return false;
+			for (int i = start; i < end; i++) context.advanceIndex();
+			context.createNode();
+			return true;
+		}
+	}
+	
+	/**
+	 * Matches everything up to (but not including) the end of the line; always succeeds.
+	 */
+	private static class LineCommentBodyMatcher extends CharSetMatcher<Node> {
+		public LineCommentBodyMatcher() {
+			super(Characters.ALL);
+		}
+		
+		@Override public boolean match(MatcherContext<Node> context) {
+			while (true) {
+				char c = context.getCurrentChar();
+				if (c == '\r' || c == '\n' || c == Chars.EOI) break;
 				context.advanceIndex();
-				context.createNode();
-				return true;
 			}
-			return false;
+			context.createNode();
+			return true;
 		}
 	}
 	
+	/**
+	 * Matches everything up to (but not including) the first {@code *}{@code /}, or to the end of input if there is none; always succeeds.
+	 */
+	private static class BlockCommentBodyMatcher extends CharSetMatcher<Node> {
+		public BlockCommentBodyMatcher() {
+			super(Characters.ALL);
+		}
+		
+		@Override public boolean match(MatcherContext<Node> context) {
+			InputBuffer input = context.getInputBuffer();
+			while (true) {
+				char c = context.getCurrentChar();
+				if (c == Chars.EOI) break;
+				if (c == '*' && input.charAt(context.getCurrentIndex() + 1) == '/') break;
+				context.advanceIndex();
+			}
+			context.createNode();
+			return true;
+		}
+	}
+	
+	/**
+	 * Matches one or more whitespace characters (space, tab, form feed, and line terminators).
+	 */
+	private static class WhitespaceRunMatcher extends CharSetMatcher<Node> {
+		public WhitespaceRunMatcher() {
+			super(Characters.of(" \t\f\r\n"));
+		}
+		
+		@Override public boolean match(MatcherContext<Node> context) {
+			if (!isWhitespace(context.getCurrentChar())) return false;
+			context.advanceIndex();
+			while (isWhitespace(context.getCurrentChar())) context.advanceIndex();
+			context.createNode();
+			return true;
+		}
+		
+		private static boolean isWhitespace(char c) {
+			return c == ' ' || c == '\t' || c == '\f' || c == '\r' || c == '\n';
+		}
+	}
 	
 	/**
 	 * Any comment (block, line, or javadoc)
@@ -147,25 +243,27 @@ public class BasicsParser extends BaseParser<Node> {
 	public Rule comment() {
 		return Sequence(
 				FirstOf(lineComment(), blockComment()),
-				actions.logComment(lastText()));
+				actions.logComment());
 	}
 	
 	@SuppressSubnodes
 	Rule lineComment() {
-		return Sequence(String("//"), ZeroOrMore(Sequence(TestNot(CharSet("\r\n")), Any())), FirstOf(String("\r\n"), Ch('\r'), Ch('\n'), Test(Eoi())));
+		return Sequence(String("//"), new LineCommentBodyMatcher(), FirstOf(String("\r\n"), Ch('\r'), Ch('\n'), Test(Eoi())));
 	}
 	
 	@SuppressSubnodes
 	Rule blockComment() {
-		return Sequence("/*", ZeroOrMore(Sequence(TestNot("*/"), Any())), "*/");
+		return Sequence("/*", new BlockCommentBodyMatcher(), "*/");
 	}
 	
 	/**
+	 * Matches a run of one or more whitespace characters in one go.
+	 * 
 	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#3.4
 	 */
 	@SuppressSubnodes
-	Rule whitespaceChar() {
-		return FirstOf(Ch(' '), Ch('\t'), Ch('\f'), lineTerminator());
+	Rule whitespaceRun() {
+		return new WhitespaceRunMatcher();
 	}
 	
 	/**
@@ -0,0 +1,176 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import lombok.ast.Node;
+
+import org.parboiled.MatcherContext;
+import org.parboiled.matchers.CharSetMatcher;
+import org.parboiled.support.Characters;
+import org.parboiled.support.Chars;
+import org.parboiled.support.InputBuffer;
+
+/**
+ * A zero-width lookahead that guesses what kind of declaration (if any) starts at the current position, so the parser can go straight to
+ * the right rule instead of trying each alternative in turn. It skips annotations, modifiers, type names, type arguments and array brackets
+ * and looks at the first token that tells them apart:
+ * <ul>
+ * <li>{@code class}, {@code interface}, {@code enum} or {@code @interface}: a type declaration.</li>
+ * <li>{@code (}: a method or constructor (or, in a block, something that certainly isn't a local variable declaration).</li>
+ * <li>{@code =}, {@code ;} or {@code ,}: a field or local variable declaration (or, in a block, possibly an assignment).</li>
+ * </ul>
+ * 
+ * The guess never rejects valid input for its own kind; it only rules out alternatives that can't possibly match.
+ */
+class DeclarationKindMatcher extends CharSetMatcher<Node> {
+	enum Kind {
+		TYPE, METHOD, VARIABLE, UNKNOWN;
+	}
+	
+	private final Kind wanted;
+	
+	DeclarationKindMatcher(Kind wanted) {
+		super(Characters.ALL);
+		this.wanted = wanted;
+	}
+	
+	@Override public boolean match(MatcherContext<Node> context) {
+		return scan(context.getInputBuffer(), context.getCurrentIndex()) == wanted;
+	}
+	
+	static Kind scan(InputBuffer input, int pos) {
+		while (true) {
+			pos = skipWhitespace(input, pos);
+			char c = input.charAt(pos);
+			switch (c) {
+			case '@':
+				pos = skipWhitespace(input, pos + 1);
+				if (isWord(input, pos, "interface")) return Kind.TYPE;
+				pos = skipAnnotation(input, pos);
+				if (pos == -1) return Kind.UNKNOWN;
+				continue;
+			case '<':
+				pos = skipBalanced(input, pos, '<', '>');
+				if (pos == -1) return Kind.UNKNOWN;
+				continue;
+			case '[':
+			case ']':
+			case '.':
+			case '?':
+			case '&':
+				pos++;
+				continue;
+			case '(':
+				return Kind.METHOD;
+			case '=':
+			case ';':
+			case ',':
+				return Kind.VARIABLE;
+			}
+			
+			if (c == Chars.EOI || !Character.isJavaIdentifierStart(c)) return Kind.UNKNOWN;
+			if (isWord(input, pos, "class") || isWord(input, pos, "interface") || isWord(input, pos, "enum")) return Kind.TYPE;
+			pos = skipIdentifier(input, pos);
+		}
+	}
+	
+	private static boolean isWord(InputBuffer input, int pos, String word) {
+		for (int i = 0; i < word.length(); i++) {
+			if (input.charAt(pos + i) != word.charAt(i)) return false;
+		}
+		return !Character.isJavaIdentifierPart(input.charAt(pos + word.length()));
+	}
+	
+	private static int skipIdentifier(InputBuffer input, int pos) {
+		pos++;
+		while (Character.isJavaIdentifierPart(input.charAt(pos))) pos++;
+		return pos;
+	}
+	
+	/**
+	 * Skips an annotation's (possibly qualified) name and its arguments, if any. Returns -1 if the input doesn't look like an annotation.
+	 */
+	private static int skipAnnotation(InputBuffer input, int pos) {
+		while (true) {
+			if (!Character.isJavaIdentifierStart(input.charAt(pos))) return -1;
+			pos = skipWhitespace(input, skipIdentifier(input, pos));
+			if (input.charAt(pos) != '.') break;
+			pos = skipWhitespace(input, pos + 1);
+		}
+		
+		if (input.charAt(pos) == '(') return skipBalanced(input, pos, '(', ')');
+		return pos;
+	}
+	
+	/**
+	 * Skips from an opening character to its matching closing character, skipping over comments and string and character literals.
+	 * Returns -1 if the end of input is reached first.
+	 */
+	private static int skipBalanced(InputBuffer input, int pos, char open, char close) {
+		int depth = 0;
+		while (true) {
+			pos = skipWhitespace(input, pos);
+			char c = input.charAt(pos++);
+			if (c == Chars.EOI) return -1;
+			if (c == open) depth++;
+			else if (c == close) {
+				if (--depth == 0) return pos;
+			} else if (c == '"' || c == '\'') {
+				while (true) {
+					char d = input.charAt(pos++);
+					if (d == c) break;
+					if (d == '\\') pos++;
+					else if (d == '\r' || d == '\n' || d == Chars.EOI) return -1;
+				}
+			}
+		}
+	}
+	
+	private static int skipWhitespace(InputBuffer input, int pos) {
+		while (true) {
+			char c = input.charAt(pos);
+			if (Character.isWhitespace(c)) {
+				pos++;
+			} else if (c == '/' && input.charAt(pos + 1) == '/') {
+				pos += 2;
+				while (true) {
+					char d = input.charAt(pos);
+					if (d == '\r' || d == '\n' || d == Chars.EOI) break;
+					pos++;
+				}
+			} else if (c == '/' && input.charAt(pos + 1) == '*') {
+				pos += 2;
+				while (true) {
+					char d = input.charAt(pos);
+					if (d == Chars.EOI) return pos;
+					pos++;
+					if (d == '*' && input.charAt(pos) == '/') {
+						pos++;
+						break;
+					}
+				}
+			} else {
+				return pos;
+			}
+		}
+	}
+}
@@ -22,6 +22,7 @@
 package lombok.ast.grammar;
 
 import java.util.List;
+import java.util.Map;
 
 import lombok.ast.ArrayAccess;
 import lombok.ast.ArrayCreation;
@@ -48,28 +49,97 @@ import lombok.ast.UnaryExpression;
 import lombok.ast.UnaryOperator;
 import lombok.ast.VariableReference;
 
+import com.google.common.collect.ImmutableMap;
+
 public class ExpressionsActions extends SourceActions {
 	public ExpressionsActions(Source source) {
 		super(source);
 	}
 	
-	public Node createLeftAssociativeBinaryExpression(
+	/**
+	 * Binding strength of each binary operator; higher binds tighter. {@code instanceof} sits with the relational operators.
+	 */
+	private static final Map<String, Integer> BINARY_PRECEDENCE = ImmutableMap.<String, Integer>builder()
+			.put("*", 10).put("/", 10).put("%", 10)
+			.put("+", 9).put("-", 9)
+			.put(">>>", 8).put("<<<", 8).put("<<", 8).put(">>", 8)
+			.put("<=", 7).put(">=", 7).put("<", 7).put(">", 7).put("instanceof", 7)
+			.put("===", 6).put("!==", 6).put("==", 6).put("!=", 6)
+			.put("&", 5)
+			.put("^", 4)
+			.put("|", 3)
+			.put("&&", 2)
+			.put("^^", 1)
+			.put("||", 0)
+			.build();
+	
+	/**
+	 * Builds the tree for a flat run of operands separated by binary operators, using precedence climbing. All operators are left associative.
+	 * The right-hand side of an {@code instanceof} is a type, not an operand.
+	 */
+	public Node createBinaryExpressions(
 			org.parboiled.Node<Node> head,
-			List<org.parboiled.Node<Node>> operatorsNodes, 
+			List<org.parboiled.Node<Node>> operatorNodes,
 			List<String> operators,
-			List<org.parboiled.Node<Node>> tail) {
+			List<org.parboiled.Node<Node>> tails) {
 		
-		Node currentLeft = head.getValue();
+		if (operators.isEmpty()) return head.getValue();
+		return new PrecedenceClimber(head, operatorNodes, operators, tails).climb(head.getValue(), 0, -1);
+	}
+	
+	private class PrecedenceClimber {
+		private final org.parboiled.Node<Node> head;
+		private final List<org.parboiled.Node<Node>> operatorNodes;
+		private final List<String> operators;
+		private final List<org.parboiled.Node<Node>> tails;
+		private final int[] precedence;
+		private int next = 0;
+		private int lastOperand;
 		
-		for (int i = 0; i < operators.size(); i++) {
-			currentLeft = new BinaryExpression()
-					.rawLeft(currentLeft)
-					.rawRight(tail.get(i).getValue()).rawOperator(operators.get(i));
-			source.registerStructure(currentLeft, operatorsNodes.get(i));
-			positionSpan(currentLeft, head, tail.get(i));
+		PrecedenceClimber(org.parboiled.Node<Node> head, List<org.parboiled.Node<Node>> operatorNodes, List<String> operators, List<org.parboiled.Node<Node>> tails) {
+			this.head = head;
+			this.operatorNodes = operatorNodes;
+			this.operators = operators;
+			this.tails = tails;
+			this.precedence = new int[operators.size()];
+			for (int i = 0; i < precedence.length; i++) {
+				Integer p = BINARY_PRECEDENCE.get(operators.get(i));
+				precedence[i] = p == null ? 0 : p;
+			}
+		}
+		
+		/**
+		 * @param left The expression built so far.
+		 * @param minPrecedence Only operators at least this strong are consumed.
+		 * @param firstOperand Index of the leftmost operand of {@code left}, where -1 is the head.
+		 */
+		Node climb(Node left, int minPrecedence, int firstOperand) {
+			while (next < operators.size() && precedence[next] >= minPrecedence) {
+				int op = next++;
+				int rightFirst = op;
+				Node right = tails.get(op).getValue();
+				lastOperand = op;
+				while (next < operators.size() && precedence[next] > precedence[op]) {
+					right = climb(right, precedence[op] + 1, rightFirst);
+				}
+				left = combine(left, op, right, firstOperand);
+			}
+			return left;
 		}
 		
-		return currentLeft;
+		private Node combine(Node left, int op, Node right, int firstOperand) {
+			org.parboiled.Node<Node> start = firstOperand == -1 ? head : tails.get(firstOperand);
+			org.parboiled.Node<Node> end = tails.get(lastOperand);
+			Node result;
+			if ("instanceof".equals(operators.get(op))) {
+				result = new InstanceOf().rawObjectReference(left).rawTypeReference(right);
+			} else {
+				result = new BinaryExpression().rawLeft(left).rawRight(right).rawOperator(operators.get(op));
+			}
+			source.registerStructure(result, operatorNodes.get(op));
+			positionSpan(result, start, end);
+			return result;
+		}
 	}
 	
 	public Node createAssignmentExpression(Node lhs, String operator, Node rhs) {
@@ -161,11 +231,6 @@ public class ExpressionsActions extends SourceActions {
 		return current;
 	}
 	
-	public Node createInstanceOfExpression(Node operand, Node type) {
-		if (type == null) return operand;
-		return posify(new InstanceOf().rawObjectReference(operand).rawTypeReference(type));
-	}
-	
 	public Node createQualifiedConstructorInvocation(
 			Node constructorTypeArgs,
 			org.parboiled.Node<Node> identifier, org.parboiled.Node<Node> classTypeArgs,
@@ -23,11 +23,8 @@ package lombok.ast.grammar;
 
 import lombok.ast.Node;
 
-import org.parboiled.Action;
 import org.parboiled.BaseParser;
-import org.parboiled.Context;
 import org.parboiled.Rule;
-import org.parboiled.annotations.Cached;
 
 public class ExpressionsParser extends BaseParser<Node> {
 	final ParserGroup group;
@@ -268,114 +265,54 @@ public class ExpressionsParser extends BaseParser<Node> {
 	}
 	
 	/**
-	 * P3
+	 * P3 through P12
 	 * 
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#15.17
-	 */
-	Rule multiplicativeExpressionChaining() {
-		return forLeftAssociativeBinaryExpression("exprMultiplicative", FirstOf(Ch('*'), solitarySymbol('/'), Ch('%')), level2ExpressionChaining());
-	}
-	
-	/**
-	 * P4
+	 * All binary operators (and {@code instanceof}) are matched in a single loop, as a flat list of operands and operators; the tree is then
+	 * built in one pass by precedence climbing (see {@code ExpressionsActions.createBinaryExpressions}). This avoids entering a separate rule
+	 * for every precedence level for every operand.
 	 * 
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#15.18
-	 */
-	Rule additiveExpressionChaining() {
-		return forLeftAssociativeBinaryExpression("exprAdditive", FirstOf(solitarySymbol('+'), solitarySymbol('-')), multiplicativeExpressionChaining());
-	}
-	
-	/**
-	 * P5
+	 * Technically 'instanceof' is on equal footing with the relational operators, but its RHS is a Type and not an expression.
 	 * 
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#15.19
-	 */
-	Rule shiftExpressionChaining() {
-		return forLeftAssociativeBinaryExpression("exprShift", FirstOf(String(">>>"), String("<<<"), String("<<"), String(">>")), additiveExpressionChaining());
-	}
-	
-	/**
-	 * P6
-	 * 
-	 * Technically 'instanceof' is on equal footing with the other operators, but practically speaking this doesn't hold;
-	 * for starters, the RHS of instanceof is a Type and not an expression, and the inevitable type of an instanceof expression (boolean) is
-	 * not compatible as LHS to *ANY* of the operators in this class, including instanceof itself. Therefore, pragmatically speaking, there can only
-	 * be one instanceof, and it has to appear at the end of the chain.
-	 * 
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#15.20
+	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#15.17
 	 */
-	Rule relationalExpressionChaining() {
+	Rule binaryExpressionChaining() {
 		return Sequence(
-				forLeftAssociativeBinaryExpression("exprRelational", FirstOf(String("<="), String(">="), solitarySymbol('<'), solitarySymbol('>')), shiftExpressionChaining()),
-				set(),
-				Optional(Sequence(
-						Sequence(String("instanceof"), group.basics.testLexBreak(), group.basics.optWS()),
-						group.types.type().label("type")).label("typeCt")).label("instanceof"),
-				set(actions.createInstanceOfExpression(value(), value("instanceof/typeCt/type"))));
-	}
-	
-	/**
-	 * P7
-	 * 
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#15.21
-	 */
-	Rule equalityExpressionChaining() {
-		return forLeftAssociativeBinaryExpression("exprEquality", FirstOf(String("==="), String("!=="), String("=="), String("!=")), relationalExpressionChaining());
-	}
-	
-	/**
-	 * P8
-	 * 
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#15.22
-	 */
-	Rule bitwiseAndExpressionChaining() {
-		return forLeftAssociativeBinaryExpression("exprBitwiseAnd", solitarySymbol('&'), equalityExpressionChaining());
-	}
-	
-	/**
-	 * P9
-	 * 
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#15.22
-	 */
-	Rule bitwiseXorExpressionChaining() {
-		return forLeftAssociativeBinaryExpression("exprBitwiseXor", solitarySymbol('^'), bitwiseAndExpressionChaining());
-	}
-	
-	/**
-	 * P10
-	 * 
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#15.22
-	 */
-	Rule bitwiseOrExpressionChaining() {
-		return forLeftAssociativeBinaryExpression("exprBitwiseOr", solitarySymbol('|'), bitwiseXorExpressionChaining());
-	}
-	
-	/**
-	 * P11
-	 * 
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#15.23
-	 */
-	Rule conditionalAndExpressionChaining() {
-		return forLeftAssociativeBinaryExpression("exprLogicalAnd", String("&&"), bitwiseOrExpressionChaining());
-	}
-	
-	/**
-	 * P12'
-	 * 
-	 * This is not a legal operator; however, it is entirely imaginable someone presumes it does exist.
-	 * It also has no other sensible meaning, so we will parse it and flag it as a syntax error in AST phase.
-	 */
-	Rule conditionalXorExpressionChaining() {
-		return forLeftAssociativeBinaryExpression("exprLogicalXor", String("^^"), conditionalAndExpressionChaining());
+				level2ExpressionChaining().label("head"),
+				group.basics.optWS(),
+				ZeroOrMore(FirstOf(
+						Sequence(
+								binaryOperator().label("operator"),
+								group.basics.optWS(),
+								level2ExpressionChaining().label("tail"),
+								group.basics.optWS()),
+						Sequence(
+								Sequence(String("instanceof"), group.basics.testLexBreak()).label("operator"),
+								group.basics.optWS(),
+								group.types.type().label("tail"),
+								group.basics.optWS())).label("binary")),
+				set(actions.createBinaryExpressions(node("head"),
+						nodes("ZeroOrMore/binary/Sequence/operator"), texts("ZeroOrMore/binary/Sequence/operator"),
+						nodes("ZeroOrMore/binary/Sequence/tail"))),
+				group.basics.optWS());
 	}
 	
 	/**
-	 * P12
+	 * Careful; each operator has to match _ONLY_ the operator, not any whitespace around it (otherwise we'd have to remove comments from it, which isn't feasible).
+	 * Longer operators must come before their prefixes.
 	 * 
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#15.24
+	 * {@code ^^} isn't a legal operator; however, it is entirely imaginable someone presumes it does exist.
+	 * It also has no other sensible meaning, so we will parse it and flag it as a syntax error in AST phase. The same goes for {@code ===}, {@code !==} and {@code <<<}.
 	 */
-	Rule conditionalOrExpressionChaining() {
-		return forLeftAssociativeBinaryExpression("exprLogicalOr", String("||"), conditionalXorExpressionChaining());
+	Rule binaryOperator() {
+		return FirstOf(
+				String("||"), String("^^"), String("&&"),
+				solitarySymbol('|'), solitarySymbol('^'), solitarySymbol('&'),
+				String("==="), String("!=="), String("=="), String("!="),
+				String("<="), String(">="),
+				String(">>>"), String("<<<"), String("<<"), String(">>"),
+				solitarySymbol('<'), solitarySymbol('>'),
+				solitarySymbol('+'), solitarySymbol('-'),
+				Ch('*'), solitarySymbol('/'), Ch('%'));
 	}
 	
 	/**
@@ -385,7 +322,7 @@ public class ExpressionsParser extends BaseParser<Node> {
 	 */
 	Rule inlineIfExpressionChaining() {
 		return Sequence(
-				conditionalOrExpressionChaining().label("head"),
+				binaryExpressionChaining().label("head"),
 				set(),
 				Optional(
 						Sequence(
@@ -445,36 +382,6 @@ public class ExpressionsParser extends BaseParser<Node> {
 				String("&&="), String("^^="), String("||="));
 	}
 	
-	/**
-	 * @param operator Careful; operator has to match _ONLY_ the operator, not any whitespace around it (otherwise we'd have to remove comments from it, which isn't feasible).
-	 */
-	@Cached
-	Rule forLeftAssociativeBinaryExpression(String labelName, Rule operator, Rule nextHigher) {
-		return Sequence(
-				nextHigher.label("head"), new Action<Node>() {
-					@Override public boolean run(Context<Node> context) {
-						setContext(context);
-						return set();
-					}
-				},
-				group.basics.optWS(),
-				ZeroOrMore(Sequence(
-						operator.label("operator"),
-						group.basics.optWS(),
-						nextHigher.label("tail"),
-						group.basics.optWS())),
-				new Action<Node>() {
-					@Override public boolean run(Context<Node> context) {
-						setContext(context);
-						return set(actions.createLeftAssociativeBinaryExpression(
-								node("head"),
-								nodes("ZeroOrMore/Sequence/operator"), texts("ZeroOrMore/Sequence/operator"),
-								nodes("ZeroOrMore/Sequence/tail")));
-					}
-				},
-				group.basics.optWS()).label(labelName);
-	}
-	
 	Rule solitarySymbol(char c) {
 		return Sequence(Ch(c), TestNot(Ch(c)));
 	}
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Data;
+
+import org.parboiled.BasicParseRunner;
+import org.parboiled.MatchHandler;
+import org.parboiled.MatcherContext;
+import org.parboiled.Rule;
+import org.parboiled.matchers.Matcher;
+import org.parboiled.support.ParsingResult;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Counts, per grammar rule, how often it was tried, how often it failed and how many characters it consumed, summed over any number of
+ * parse runs. Unlike the {@link ProfilerParseRunner} nothing is kept per invocation, so this is cheap enough to run over an entire source tree.
+ * 
+ * Each parse run builds its own matchers, so counters are kept per matcher during a run and merged afterwards, keyed on the label of the rule
+ * together with the label of the rule that first invoked it (a plain label such as {@code Sequence} is meaningless on its own).
+ * 
+ * Instances are thread safe; runs may be made concurrently.
+ */
+public class GrammarProfile {
+	private final Map<String, long[]> totals = Maps.newHashMap();
+	private int runs;
+	
+	private static final int INVOCATIONS = 0, FAILURES = 1, CONSUMED = 2;
+	
+	/**
+	 * Parses {@code input} with {@code rule}, adding the rule invocations of this run to this profile.
+	 */
+	public <V> ParsingResult<V> run(Rule rule, String input) {
+		Runner<V> runner = new Runner<V>(rule, input);
+		try {
+			return runner.run();
+		} finally {
+			merge(runner.handler.counters.values());
+		}
+	}
+	
+	private synchronized void merge(Iterable<Counter> counters) {
+		runs++;
+		for (Counter counter : counters) {
+			String key = counter.getKey();
+			long[] total = totals.get(key);
+			if (total == null) totals.put(key, total = new long[3]);
+			total[INVOCATIONS] += counter.invocations;
+			total[FAILURES] += counter.failures;
+			total[CONSUMED] += counter.consumed;
+		}
+	}
+	
+	public synchronized int getRuns() {
+		return runs;
+	}
+	
+	/**
+	 * Returns the statistics of every rule seen so far, most often invoked first.
+	 */
+	public synchronized List<RuleStatistics> getStatistics() {
+		List<RuleStatistics> result = Lists.newArrayList();
+		for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+			long[] total = entry.getValue();
+			result.add(new RuleStatistics(entry.getKey(), total[INVOCATIONS], total[FAILURES], total[CONSUMED]));
+		}
+		Collections.sort(result, BY_INVOCATIONS);
+		return result;
+	}
+	
+	/**
+	 * Writes the {@code top} most often invoked rules as an aligned table; a negative number means: All of them.
+	 */
+	public void writeReport(Appendable out, int top) throws IOException {
+		List<RuleStatistics> statistics = getStatistics();
+		long invocations = 0;
+		for (RuleStatistics s : statistics) invocations += s.getInvocations();
+		
+		out.append(String.format("%d rule invocations over %d parse runs\n", invocations, getRuns()));
+		out.append(String.format("%14s %14s %7s %14s  %s\n", "invocations", "failures", "failed", "consumed", "rule"));
+		int count = top;
+		for (RuleStatistics s : statistics) {
+			if (count-- == 0) break;
+			out.append(String.format("%14d %14d %6.1f%% %14d  %s\n",
+					s.getInvocations(), s.getFailures(), 100.0 * s.getFailures() / s.getInvocations(), s.getConsumed(), s.getRule()));
+		}
+	}
+	
+	/**
+	 * Writes the statistics of every rule seen so far as CSV, most often invoked first.
+	 */
+	public void writeCsv(Appendable out) throws IOException {
+		out.append("rule,invocations,failures,consumed\n");
+		for (RuleStatistics s : getStatistics()) {
+			out.append('"').append(s.getRule().replace("\"", "\"\"")).append('"');
+			out.append(',').append(String.valueOf(s.getInvocations()));
+			out.append(',').append(String.valueOf(s.getFailures()));
+			out.append(',').append(String.valueOf(s.getConsumed()));
+			out.append('\n');
+		}
+	}
+	
+	@Data
+	public static class RuleStatistics {
+		private final String rule;
+		private final long invocations, failures, consumed;
+	}
+	
+	private static final Comparator<RuleStatistics> BY_INVOCATIONS = new Comparator<RuleStatistics>() {
+		@Override public int compare(RuleStatistics o1, RuleStatistics o2) {
+			if (o1.getInvocations() != o2.getInvocations()) return o1.getInvocations() > o2.getInvocations() ? -1 : +1;
+			if (o1.getFailures() != o2.getFailures()) return o1.getFailures() > o2.getFailures() ? -1 : +1;
+			return o1.getRule().compareTo(o2.getRule());
+		}
+	};
+	
+	private static final class Counter {
+		final Matcher<?> matcher;
+		final Counter parent;
+		long invocations, failures, consumed;
+		
+		Counter(Matcher<?> matcher, Counter parent) {
+			this.matcher = matcher;
+			this.parent = parent;
+		}
+		
+		String getKey() {
+			return parent == null ? matcher.getLabel() : parent.matcher.getLabel() + "/" + matcher.getLabel();
+		}
+	}
+	
+	private static final class Runner<V> extends BasicParseRunner<V> {
+		final CountingHandler<V> handler = new CountingHandler<V>();
+		
+		Runner(Rule rule, String input) {
+			super(rule, input);
+		}
+		
+		@Override protected boolean runRootContext() {
+			rootContext = new MatcherContext<V>(inputBuffer, parseErrors, handler, rootMatcher);
+			return handler.matchRoot(rootContext);
+		}
+	}
+	
+	private static final class CountingHandler<V> implements MatchHandler<V> {
+		final Map<Matcher<V>, Counter> counters = new IdentityHashMap<Matcher<V>, Counter>();
+		private Counter[] stack = new Counter[64];
+		private int depth;
+		
+		public boolean matchRoot(MatcherContext<V> rootContext) {
+			return rootContext.runMatcher();
+		}
+		
+		public boolean match(MatcherContext<V> context) {
+			Matcher<V> matcher = context.getMatcher();
+			Counter counter = counters.get(matcher);
+			if (counter == null) counters.put(matcher, counter = new Counter(matcher, depth == 0 ? null : stack[depth - 1]));
+			
+			if (depth == stack.length) {
+				Counter[] newStack = new Counter[depth * 2];
+				System.arraycopy(stack, 0, newStack, 0, depth);
+				stack = newStack;
+			}
+			stack[depth++] = counter;
+			
+			int start = context.getCurrentIndex();
+			boolean result;
+			try {
+				result = matcher.match(context);
+			} finally {
+				depth--;
+			}
+			
+			counter.invocations++;
+			if (result) counter.consumed += context.getCurrentIndex() - start;
+			else counter.failures++;
+			return result;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+/**
+ * Interns identifier names and other short, often repeated tokens (such as number literals) for a single source file. Tokens are looked up
+ * by their character range in the (preprocessed) input, so a token that has been seen before is returned without creating a new string.
+ * 
+ * Hashes are computed the same way {@link String#hashCode()} does, so growing the table doesn't need the input.
+ */
+class IdentifierTable {
+	private String[] table = new String[256];
+	private int size;
+	
+	String intern(String input, int start, int end) {
+		int length = end - start;
+		int hash = 0;
+		for (int i = start; i < end; i++) hash = 31 * hash + input.charAt(i);
+		
+		int mask = table.length - 1;
+		int idx = spread(hash) & mask;
+		while (true) {
+			String candidate = table[idx];
+			if (candidate == null) break;
+			if (candidate.length() == length && input.regionMatches(start, candidate, 0, length)) return candidate;
+			idx = (idx + 1) & mask;
+		}
+		
+		String result = input.substring(start, end);
+		table[idx] = result;
+		if (++size * 2 > table.length) grow();
+		return result;
+	}
+	
+	private void grow() {
+		String[] old = table;
+		table = new String[old.length * 2];
+		int mask = table.length - 1;
+		for (String s : old) {
+			if (s == null) continue;
+			int idx = spread(s.hashCode()) & mask;
+			while (table[idx] != null) idx = (idx + 1) & mask;
+			table[idx] = s;
+		}
+	}
+	
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
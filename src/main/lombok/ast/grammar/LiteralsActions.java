@@ -34,35 +34,37 @@ public class LiteralsActions extends SourceActions {
 		super(source);
 	}
 	
-	public Node createNullLiteral(String raw) {
-		return posify(new NullLiteral().rawValue(raw));
+	public Node createNullLiteral() {
+		return posify(new NullLiteral().rawValue(rawText()));
 	}
 	
-	public Node createStringLiteral(String raw) {
-		return posify(new StringLiteral().rawValue(raw));
+	public Node createStringLiteral() {
+		return posify(new StringLiteral().rawValue(rawText()));
 	}
 	
-	public Node createCharLiteral(String raw) {
-		return posify(new CharLiteral().rawValue(raw));
+	public Node createCharLiteral() {
+		return posify(new CharLiteral().rawValue(rawText()));
 	}
 	
-	public Node createBooleanLiteral(String raw) {
-		return posify(new BooleanLiteral().rawValue(raw));
+	public Node createBooleanLiteral() {
+		return posify(new BooleanLiteral().rawValue(rawText()));
 	}
 	
-	public Node createNumberLiteral(String raw) {
+	public Node createIntegralLiteral(org.parboiled.Node<Node> raw) {
 		if (raw == null) return posify(new IntegralLiteral());
-		
-		String v = raw.trim().toLowerCase();
-		
-		if (v.startsWith("0x")) {
-			if (v.contains("p")) return posify(new FloatingPointLiteral().rawValue(raw));
-			return posify(new IntegralLiteral().rawValue(raw));
-		}
-		
-		if (v.contains(".") || v.endsWith("d") || v.endsWith("f") || v.contains("e")) {
-			return posify(new FloatingPointLiteral().rawValue(raw));
-		}
-		else return posify(new IntegralLiteral().rawValue(raw));
+		return posify(new IntegralLiteral().rawValue(source.internText(raw.getStartIndex(), raw.getEndIndex())));
+	}
+	
+	public Node createFloatingPointLiteral(org.parboiled.Node<Node> raw) {
+		if (raw == null) return posify(new FloatingPointLiteral());
+		return posify(new FloatingPointLiteral().rawValue(source.internText(raw.getStartIndex(), raw.getEndIndex())));
+	}
+	
+	/**
+	 * Returns the text matched so far by the current rule. Equal literals share a single string instance across the whole source.
+	 */
+	private String rawText() {
+		int start = startPos();
+		return source.internText(start, Math.max(start, currentPos()));
 	}
 }
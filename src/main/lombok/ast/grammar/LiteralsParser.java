@@ -24,8 +24,13 @@ package lombok.ast.grammar;
 import lombok.ast.Node;
 
 import org.parboiled.BaseParser;
+import org.parboiled.MatcherContext;
 import org.parboiled.Rule;
 import org.parboiled.annotations.SuppressSubnodes;
+import org.parboiled.matchers.CharSetMatcher;
+import org.parboiled.support.Characters;
+import org.parboiled.support.Chars;
+import org.parboiled.support.InputBuffer;
 
 public class LiteralsParser extends BaseParser<Node> {
 	final ParserGroup group;
@@ -53,7 +58,7 @@ public class LiteralsParser extends BaseParser<Node> {
 			Sequence(
 					String("null"),
 					group.basics.testLexBreak()),
-			set(actions.createNullLiteral(lastText())),
+			set(actions.createNullLiteral()),
 			group.basics.optWS());
 	}
 	
@@ -63,7 +68,7 @@ public class LiteralsParser extends BaseParser<Node> {
 	public Rule stringLiteral() {
 		return Sequence(
 				stringLiteralRaw(),
-				set(actions.createStringLiteral(lastText())),
+				set(actions.createStringLiteral()),
 				group.basics.optWS());
 	}
 	
@@ -71,18 +76,54 @@ public class LiteralsParser extends BaseParser<Node> {
 	Rule stringLiteralRaw() {
 		return Sequence(
 				Ch('"'),
-				ZeroOrMore(FirstOf(
-						stringEscape(),
-						Sequence(TestNot(CharSet("\"\r\n")), Any()))),
+				new StringLiteralBodyMatcher(),
 				Ch('"'));
 	}
 	
-	Rule stringEscape() {
-		return Sequence(
-				Ch('\\'),
-				FirstOf(
-						Sequence(Optional(CharRange('0', '3')), Optional(CharRange('0', '7')), CharRange('0', '7')),
-						Sequence(TestNot("\r\n"), Any())));
+	/**
+	 * Matches the contents of a string literal up to (but not including) the closing quote or end of line; always succeeds.
+	 * A backslash escapes the next character unless that is the end of input or a {@code \r\n} pair. Octal escapes need no special treatment,
+	 * as octal digits are never a quote or line terminator.
+	 */
+	private static class StringLiteralBodyMatcher extends CharSetMatcher<Node> {
+		public StringLiteralBodyMatcher() {
+			super(Characters.ALL);
+		}
+		
+		@Override public boolean match(MatcherContext<Node> context) {
+			InputBuffer input = context.getInputBuffer();
+			while (true) {
+				char c = context.getCurrentChar();
+				if (c == '"' || c == '\r' || c == '\n' || c == Chars.EOI) break;
+				if (c == '\\') {
+					int idx = context.getCurrentIndex();
+					char next = input.charAt(idx + 1);
+					if (next != Chars.EOI && !(next == '\r' && input.charAt(idx + 2) == '\n')) context.advanceIndex();
+				}
+				context.advanceIndex();
+			}
+			context.createNode();
+			return true;
+		}
+	}
+	
+	/**
+	 * Matches the contents of a character literal up to (but not including) the closing quote or end of line; always succeeds.
+	 */
+	private static class CharLiteralBodyMatcher extends CharSetMatcher<Node> {
+		public CharLiteralBodyMatcher() {
+			super(Characters.ALL);
+		}
+		
+		@Override public boolean match(MatcherContext<Node> context) {
+			while (true) {
+				char c = context.getCurrentChar();
+				if (c == '\'' || c == '\r' || c == '\n' || c == Chars.EOI) break;
+				context.advanceIndex();
+			}
+			context.createNode();
+			return true;
+		}
 	}
 	
 	/**
@@ -95,11 +136,10 @@ public class LiteralsParser extends BaseParser<Node> {
 						FirstOf(
 								Sequence(escapedSequence(), Ch('\'')),
 								Sequence(
-										ZeroOrMore(Sequence(TestNot(
-												FirstOf(Ch('\''), group.basics.lineTerminator())), Any())),
+										new CharLiteralBodyMatcher(),
 										Ch('\'')),
 								Any())),
-				set(actions.createCharLiteral(lastText())),
+				set(actions.createCharLiteral()),
 				group.basics.optWS());
 	}
 	
@@ -129,7 +169,7 @@ public class LiteralsParser extends BaseParser<Node> {
 				Sequence(
 						FirstOf(String("true"), String("false")),
 						group.basics.testLexBreak()),
-				set(actions.createBooleanLiteral(lastText())),
+				set(actions.createBooleanLiteral()),
 				group.basics.optWS());
 	}
 	
@@ -139,73 +179,120 @@ public class LiteralsParser extends BaseParser<Node> {
 	 */
 	public Rule numberLiteral() {
 		return Sequence(
-				Test(Sequence(Optional(Ch('.')), CharRange('0', '9'))),
-				FirstOf(hexLiteral(), fpLiteral()),
+				FirstOf(
+						Sequence(
+								new NumberLiteralMatcher(false).label("integral"),
+								set(actions.createIntegralLiteral(node("integral")))),
+						Sequence(
+								new NumberLiteralMatcher(true).label("floatingPoint"),
+								set(actions.createFloatingPointLiteral(node("floatingPoint"))))),
 				set(lastValue()),
 				group.basics.optWS());
 	}
 	
 	/**
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#3.10.1
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#3.10.2
+	 * Scans a complete number literal (decimal, octal, hex, floating point or hex floating point, with optional type suffix) in a single pass,
+	 * and matches only if it is of the requested kind (integral or floating point).
+	 * 
+	 * Accepts the same input as the JLS grammar for number literals, except that it doesn't reject illegal digits in octal literals or
+	 * {@code L} suffixes on floating point literals; those are flagged when the literal's value is decoded.
 	 */
-	Rule fpLiteral() {
-		return Sequence(
-				Sequence(
-						FirstOf(
-								Sequence(OneOrMore(digit()), Optional(Sequence(Ch('.'), ZeroOrMore(digit())))),
-								Sequence(Ch('.'), OneOrMore(digit()))),
-						Optional(
-								Sequence(
-										CharIgnoreCase('e'),
-										Optional(FirstOf(Ch('+'), Ch('-'))),
-										OneOrMore(digit()))),
-						numberTypeSuffix()),
-				set(actions.createNumberLiteral(lastText())));
-	}
-	
-	/**
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#3.10.1
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#3.10.2
-	 */
-	Rule hexLiteral() {
-		return Sequence(
-				Sequence(
-						Sequence(Ch('0'), CharIgnoreCase('x')),
-						FirstOf(
-								hexFP(),
-								Sequence(OneOrMore(hexDigit()), numberTypeSuffix())
-								)),
-				set(actions.createNumberLiteral(lastText())));
-	}
-	
-	/**
-	 * @see http://java.sun.com/docs/books/jls/third_edition/html/lexical.html#3.10.2
-	 */
-	Rule hexFP() {
-		return Sequence(
-				FirstOf(
-						Sequence(Ch('.'), OneOrMore(hexDigit())),
-						Sequence(
-								OneOrMore(hexDigit()),
-								Optional(Sequence(Ch('.'), ZeroOrMore(hexDigit()))))),
-				Sequence(
-						CharIgnoreCase('p'),
-						Optional(FirstOf(Ch('+'), Ch('-'))),
-						OneOrMore(digit())),
-				numberTypeSuffix());
-	}
-	
-	Rule numberTypeSuffix() {
-		return Optional(FirstOf(CharIgnoreCase('d'), CharIgnoreCase('f'), CharIgnoreCase('l')));
-	}
-	
-	Rule digit() {
-		return FirstOf(Ch('0'), Ch('1'), Ch('2'), Ch('3'), Ch('4'), Ch('5'), Ch('6'), Ch('7'), Ch('8'), Ch('9'), Ch('0'));
-	}
-	
-	Rule hexDigit() {
-		return FirstOf(digit(),
-				CharIgnoreCase('a'), CharIgnoreCase('b'), CharIgnoreCase('c'), CharIgnoreCase('d'), CharIgnoreCase('e'), CharIgnoreCase('f'));
+	private static class NumberLiteralMatcher extends CharSetMatcher<Node> {
+		private final boolean floatingPoint;
+		
+		public NumberLiteralMatcher(boolean floatingPoint) {
+			super(Characters.of(".0123456789"));
+			this.floatingPoint = floatingPoint;
+		}
+		
+		@Override public boolean match(MatcherContext<Node> context) {
+			InputBuffer input = context.getInputBuffer();
+			int start = context.getCurrentIndex();
+			int end = -1;
+			boolean fp = false;
+			
+			if (input.charAt(start) == '0' && (input.charAt(start + 1) == 'x' || input.charAt(start + 1) == 'X')) {
+				int digitsStart = start + 2;
+				int pos = skipDigits(input, digitsStart, 16);
+				boolean mantissa = pos > digitsStart;
+				if (input.charAt(pos) == '.') {
+					int fraction = skipDigits(input, pos + 1, 16);
+					if (mantissa || fraction > pos + 1) {
+						mantissa = true;
+						pos = fraction;
+					}
+				}
+				if (mantissa && (input.charAt(pos) == 'p' || input.charAt(pos) == 'P')) {
+					int exponent = skipSign(input, pos + 1);
+					int exponentEnd = skipDigits(input, exponent, 10);
+					if (exponentEnd > exponent) {
+						end = skipSuffix(input, exponentEnd);
+						fp = true;
+					}
+				}
+				if (end == -1) {
+					int digitsEnd = skipDigits(input, digitsStart, 16);
+					if (digitsEnd > digitsStart) end = skipSuffix(input, digitsEnd);
+				}
+			}
+			
+			if (end == -1) {
+				int pos = skipDigits(input, start, 10);
+				if (pos > start) {
+					if (input.charAt(pos) == '.') {
+						pos = skipDigits(input, pos + 1, 10);
+						fp = true;
+					}
+				} else {
+					if (input.charAt(start) != '.') return false;
+					pos = skipDigits(input, start + 1, 10);
+					if (pos == start + 1) return false;
+					fp = true;
+				}
+				
+				char e = input.charAt(pos);
+				if (e == 'e' || e == 'E') {
+					int exponent = skipSign(input, pos + 1);
+					int exponentEnd = skipDigits(input, exponent, 10);
+					if (exponentEnd > exponent) {
+						pos = exponentEnd;
+						fp = true;
+					}
+				}
+				
+				char suffix = input.charAt(pos);
+				if (suffix == 'd' || suffix == 'D' || suffix == 'f' || suffix == 'F') fp = true;
+				end = skipSuffix(input, pos);
+			}
+			
+			if (fp != floatingPoint) return false;
+			for (int i = start; i < end; i++) context.advanceIndex();
+			context.createNode();
+			return true;
+		}
+		
+		private static int skipDigits(InputBuffer input, int pos, int radix) {
+			while (true) {
+				char c = input.charAt(pos);
+				boolean digit = (c >= '0' && c <= '9') ||
+						(radix == 16 && ((c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')));
+				if (!digit) return pos;
+				pos++;
+			}
+		}
+		
+		private static int skipSign(InputBuffer input, int pos) {
+			char c = input.charAt(pos);
+			return c == '+' || c == '-' ? pos + 1 : pos;
+		}
+		
+		private static int skipSuffix(InputBuffer input, int pos) {
+			switch (input.charAt(pos)) {
+			case 'd': case 'D': case 'f': case 'F': case 'l': case 'L':
+				return pos + 1;
+			default:
+				return pos;
+			}
+		}
 	}
 }
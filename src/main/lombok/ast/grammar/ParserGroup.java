@@ -21,12 +21,19 @@
  */
 package lombok.ast.grammar;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 import lombok.Getter;
 
 import org.parboiled.Parboiled;
 
 public class ParserGroup {
 	@Getter private final Source source;
+	@Getter private final boolean outline;
 	public final BasicsParser basics;
 	public final LiteralsParser literals;
 	public final TypesParser types;
@@ -35,12 +42,70 @@ public class ParserGroup {
 	public final StructuresParser structures;
 	
 	public ParserGroup(Source source) {
+		this(source, false);
+	}
+	
+	/**
+	 * @param outline If {@code true}, method, constructor and initializer bodies are skipped by brace matching instead of being parsed; the resulting
+	 *     blocks are filled in when first accessed.
+	 */
+	public ParserGroup(Source source, boolean outline) {
 		this.source = source;
-		basics = Parboiled.createParser(BasicsParser.class, this);
-		literals = Parboiled.createParser(LiteralsParser.class, this);
-		types = Parboiled.createParser(TypesParser.class, this);
-		expressions = Parboiled.createParser(ExpressionsParser.class, this);
-		statements = Parboiled.createParser(StatementsParser.class, this);
-		structures = Parboiled.createParser(StructuresParser.class, this);
+		this.outline = outline;
+		basics = createParser(BasicsParser.class);
+		literals = createParser(LiteralsParser.class);
+		types = createParser(TypesParser.class);
+		expressions = createParser(ExpressionsParser.class);
+		statements = createParser(StatementsParser.class);
+		structures = createParser(StructuresParser.class);
+	}
+	
+	static final Class<?>[] PARSER_CLASSES = {
+		BasicsParser.class, LiteralsParser.class, TypesParser.class, ExpressionsParser.class, StatementsParser.class, StructuresParser.class,
+	};
+	
+	/**
+	 * The name parboiled gives the subclass it generates for a parser class.
+	 */
+	static String extendedParserClassName(Class<?> parserClass) {
+		return parserClass.getName() + "$$parboiled";
+	}
+	
+	/**
+	 * Constructors of the parser classes that {@link ParserPrecompiler} generated at build time. Parsers without one are generated by
+	 * parboiled on first use, which is what the system property {@code lombok.ast.precompiledParsers=false} forces for all of them.
+	 */
+	private static final Map<Class<?>, Constructor<?>> PRECOMPILED = findPrecompiledParsers();
+	
+	private static Map<Class<?>, Constructor<?>> findPrecompiledParsers() {
+		Map<Class<?>, Constructor<?>> map = new HashMap<Class<?>, Constructor<?>>();
+		if ("false".equals(System.getProperty("lombok.ast.precompiledParsers"))) return map;
+		
+		for (Class<?> parserClass : PARSER_CLASSES) {
+			try {
+				Class<?> extended = Class.forName(extendedParserClassName(parserClass), false, parserClass.getClassLoader());
+				map.put(parserClass, extended.getConstructor(ParserGroup.class));
+			} catch (ClassNotFoundException e) {
+				// Not precompiled; parboiled will generate it.
+			} catch (NoSuchMethodException e) {
+				throw new IllegalStateException("Precompiled parser for " + parserClass.getName() + " has no ParserGroup constructor", e);
+			}
+		}
+		return Collections.unmodifiableMap(map);
+	}
+	
+	private <P> P createParser(Class<P> parserClass) {
+		Constructor<?> precompiled = PRECOMPILED.get(parserClass);
+		if (precompiled == null) return Parboiled.createParser(parserClass, this);
+		
+		try {
+			return parserClass.cast(precompiled.newInstance(this));
+		} catch (InstantiationException e) {
+			throw new IllegalStateException("Can't create precompiled parser for " + parserClass.getName(), e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Can't create precompiled parser for " + parserClass.getName(), e);
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException("Can't create precompiled parser for " + parserClass.getName(), e.getCause());
+		}
 	}
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+
+import org.parboiled.transform.ParserTransformer;
+
+import com.google.common.io.Files;
+
+/**
+ * Build-time tool that has parboiled generate the subclasses of all lombok.ast parser classes, along with the action classes these use,
+ * and writes them as class files into the given output directory. {@link ParserGroup} loads these directly when they are on the classpath,
+ * instead of instrumenting the parser classes with ASM the first time a source is parsed.
+ * <p>
+ * Parboiled doesn't offer a public API for this, so the generated bytecode is obtained through its internal transformation classes.
+ * Should a parboiled upgrade change those, this tool fails the build rather than producing classes that don't match.
+ */
+class ParserPrecompiler {
+	public static void main(String[] args) throws Exception {
+		if (args.length != 1) {
+			System.err.println("Usage: java lombok.ast.grammar.ParserPrecompiler <class output directory>");
+			System.exit(1);
+			return;
+		}
+		
+		File outDir = new File(args[0]);
+		int count = 0;
+		for (Class<?> parserClass : ParserGroup.PARSER_CLASSES) count += precompile(parserClass, outDir);
+		System.out.printf("Precompiled %d parser classes into %s\n", count, outDir.getCanonicalPath());
+	}
+	
+	private static int precompile(Class<?> parserClass, File outDir) throws IOException {
+		Method extend;
+		try {
+			extend = ParserTransformer.class.getDeclaredMethod("extendParserClass", Class.class);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("This version of parboiled has no ParserTransformer.extendParserClass", e);
+		}
+		extend.setAccessible(true);
+		Object classNode = invoke(extend, null, parserClass);
+		
+		int count = 1;
+		write(outDir, ParserGroup.extendedParserClassName(parserClass), (byte[]) invoke(classNode, "getClassCode"));
+		Object ruleMethods = invoke(classNode, "getRuleMethods");
+		Collection<?> methods = ruleMethods instanceof Map<?, ?> ? ((Map<?, ?>) ruleMethods).values() : (Collection<?>) ruleMethods;
+		for (Object method : methods) {
+			for (Object group : (Iterable<?>) invoke(method, "getGroups")) {
+				String groupClassName = (String) invoke(invoke(group, "getGroupClassType"), "getClassName");
+				write(outDir, groupClassName, (byte[]) invoke(group, "getGroupClassCode"));
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	private static void write(File outDir, String className, byte[] code) throws IOException {
+		if (code == null) throw new IllegalStateException("parboiled generated no bytecode for " + className);
+		File file = new File(outDir, className.replace('.', '/') + ".class");
+		file.getParentFile().mkdirs();
+		Files.write(code, file);
+	}
+	
+	private static Object invoke(Object target, String methodName) {
+		try {
+			Method m = target.getClass().getMethod(methodName);
+			m.setAccessible(true);
+			return invoke(m, target);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("This version of parboiled has no " + target.getClass().getName() + "." + methodName, e);
+		}
+	}
+	
+	private static Object invoke(Method m, Object target, Object... args) {
+		try {
+			return m.invoke(target, args);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Method " + m.getName() + " isn't accessible", e);
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException("Method " + m.getName() + " failed", e.getCause());
+		}
+	}
+}
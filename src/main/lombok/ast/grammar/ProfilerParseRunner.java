@@ -25,7 +25,9 @@ import java.util.Collection;
 import java.util.List;
 import java.util.TreeSet;
 
-import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 
 import org.parboiled.BasicParseRunner;
 import org.parboiled.MatchHandler;
@@ -128,13 +130,23 @@ public class ProfilerParseRunner<V> extends BasicParseRunner<V> {
 		}
 	}
 	
-	@Data
+	/**
+	 * The path of an entry is only built when a report is formatted; building it for every rule invocation made profiling far too slow.
+	 */
+	@Getter @Setter @RequiredArgsConstructor
 	private static class ReportEntry<V> implements Comparable<ReportEntry<V>> {
-		private final String path;
+		private final ReportEntry<V> parent;
+		private final String label;
+		private final int index;
 		private boolean succeeded;
 		private final List<ReportEntry<V>> children = Lists.newArrayList();
 		private int subSteps = 0;
 		
+		public String getPath() {
+			String prefix = parent == null ? "" : parent.getPath();
+			return prefix + "/" + label + "[" + index + "]";
+		}
+		
 		@Override public int compareTo(ReportEntry<V> o) {
 			if (o.getSubSteps() < getSubSteps()) return -1;
 			else if (o.getSubSteps() > getSubSteps()) return +1;
@@ -153,16 +165,14 @@ public class ProfilerParseRunner<V> extends BasicParseRunner<V> {
 		}
 		
 		public boolean match(MatcherContext<V> context) {
-			String path = stack.isEmpty() ? "" : stack.get(stack.size() - 1).getPath();
-			path += String.format("/%s[%d]", context.getMatcher().getLabel(), context.getCurrentIndex());
-			ReportEntry<V> report = new ReportEntry<V>(path);
+			ReportEntry<V> parent = stack.isEmpty() ? null : stack.get(stack.size() - 1);
+			ReportEntry<V> report = new ReportEntry<V>(parent, context.getMatcher().getLabel(), context.getCurrentIndex());
 			stack.add(report);
 			boolean result = context.getMatcher().match(context);
 			report.setSucceeded(result);
 			stack.remove(stack.size() -1);
-			if (stack.isEmpty()) rootReport = report;
+			if (parent == null) rootReport = report;
 			else {
-				ReportEntry<V> parent = stack.get(stack.size() - 1);
 				parent.getChildren().add(report);
 				parent.setSubSteps(parent.getSubSteps() + 1 + report.getSubSteps());
 			}
@@ -29,6 +29,7 @@ import java.util.Map;
 import java.util.TreeMap;
 
 import lombok.Getter;
+import lombok.ast.Block;
 import lombok.ast.Comment;
 import lombok.ast.Expression;
 import lombok.ast.ForwardingAstVisitor;
@@ -36,7 +37,6 @@ import lombok.ast.JavadocContainer;
 import lombok.ast.Node;
 import lombok.ast.Position;
 
-import org.parboiled.Context;
 import org.parboiled.RecoveringParseRunner;
 import org.parboiled.errors.ParseError;
 import org.parboiled.support.ParsingResult;
@@ -52,17 +52,25 @@ public class Source {
 	@Getter private final String name;
 	@Getter private final String rawInput;
 	private List<Node> nodes;
-	private List<ParseProblem> problems;
-	private List<Comment> comments;
+	/* Volatile, as parsing a deferred block replaces these lists, possibly on another thread than the one that parsed the source. */
+	private volatile List<ParseProblem> problems;
+	private volatile List<Comment> comments;
 	private boolean parsed;
+	private boolean withoutStructures;
 	private ParsingResult<Node> parsingResult;
 	
 	private TreeMap<Integer, Integer> positionDeltas;
 	private Map<org.parboiled.Node<Node>, Node> registeredStructures;
-	private Map<org.parboiled.Node<Node>, List<Comment>> registeredComments;
+	private TreeMap<Integer, Integer> registeredComments;
 	private String preprocessed;
 	private Map<Node, Collection<SourceStructure>> cachedSourceStructures;
 	private List<Integer> lineEndings;
+	private IdentifierTable identifiers;
+	private boolean[] whitespace;
+	/* Parsers for deferred blocks, built on first use and shared by all of them. */
+	private ParserGroup bodyParsers;
+	/* Where the input of the current parse starts in the preprocessed source; only non-zero while a deferred block is being parsed. */
+	private int parseOffset;
 	
 	public Source(String rawInput, String name) {
 		this.rawInput = rawInput;
@@ -87,11 +95,16 @@ public class Source {
 		comments = Lists.newArrayList();
 		lineEndings = ImmutableList.of();
 		parsed = false;
+		withoutStructures = false;
 		parsingResult = null;
 		positionDeltas = Maps.newTreeMap();
-		registeredComments = new MapMaker().weakKeys().makeMap();
+		registeredComments = Maps.newTreeMap();
 		registeredStructures = new MapMaker().weakKeys().makeMap();
 		cachedSourceStructures = null;
+		identifiers = new IdentifierTable();
+		whitespace = null;
+		bodyParsers = null;
+		parseOffset = 0;
 	}
 	
 	public String getOverviewProfileInformation() {
@@ -140,6 +153,47 @@ public class Source {
 		postProcess();
 	}
 	
+	/**
+	 * Parses the source as a compilation unit just like {@link #parseCompilationUnit()}, adding the rule invocations of the parse to
+	 * {@code profile}. If the source doesn't parse cleanly it is parsed again without profiling, so that parse problems are still reported.
+	 */
+	public void parseCompilationUnit(GrammarProfile profile) {
+		if (parsed) return;
+		preProcess();
+		ParserGroup group = new ParserGroup(this);
+		parsingResult = profile.run(group.structures.compilationUnitEoi(), preprocessed);
+		if (parsingResult.parseTreeRoot == null || !parsingResult.parseErrors.isEmpty()) {
+			parsingResult = RecoveringParseRunner.run(group.structures.compilationUnitEoi(), preprocessed);
+		}
+		postProcess();
+	}
+	
+	/**
+	 * Parses the source as a compilation unit, but doesn't parse method, constructor and initializer bodies; those are only parsed if and
+	 * when they are accessed. Parse problems inside a body are added to {@link #getProblems()} when that body is parsed.
+	 */
+	public void parseCompilationUnitOutline() {
+		if (parsed) return;
+		preProcess();
+		ParserGroup group = new ParserGroup(this, true);
+		parsingResult = RecoveringParseRunner.run(group.structures.compilationUnitEoi(), preprocessed);
+		postProcess();
+	}
+	
+	/**
+	 * Parses the source as a compilation unit for callers that don't need {@link #getSourceStructures()}. The bookkeeping that exists only to
+	 * support source structures is never recorded, and the parse tree is released as soon as the AST has been built, so that a retained
+	 * source costs little more than its AST. The AST itself is the same, fully mutable tree {@link #parseCompilationUnit()} produces.
+	 */
+	public void parseCompilationUnitWithoutStructures() {
+		if (parsed) return;
+		withoutStructures = true;
+		preProcess();
+		ParserGroup group = new ParserGroup(this);
+		parsingResult = RecoveringParseRunner.run(group.structures.compilationUnitEoi(), preprocessed);
+		postProcess();
+	}
+	
 	public void parseMember() {
 		if (parsed) return;
 		preProcess();
@@ -180,7 +234,7 @@ public class Source {
 		
 		if (parsingResult.parseTreeRoot != null) {
 			nodes.add(parsingResult.parseTreeRoot.getValue());
-			gatherComments(parsingResult.parseTreeRoot);
+			comments.addAll(materializeComments(0, preprocessed.length()));
 		}
 		
 		comments = Collections.unmodifiableList(comments);
@@ -199,15 +253,22 @@ public class Source {
 		fixPositions(comments);
 		
 		parsed = true;
+		
+		if (withoutStructures) {
+			parsingResult = null;
+			registeredComments = Maps.newTreeMap();
+			whitespace = null;
+		}
 	}
 	
 	void registerStructure(Node node, org.parboiled.Node<Node> pNode) {
-		registeredStructures.put(pNode, node);
+		if (!withoutStructures) registeredStructures.put(pNode, node);
 	}
 	
 	public Map<Node, Collection<SourceStructure>> getSourceStructures() {
 		if (cachedSourceStructures != null) return cachedSourceStructures;
 		parseCompilationUnit();
+		if (withoutStructures) throw new IllegalStateException("Source structures aren't available for a source parsed with parseCompilationUnitWithoutStructures().");
 		ListMultimap<Node, SourceStructure> map = LinkedListMultimap.create();
 		
 		org.parboiled.Node<Node> pNode = parsingResult.parseTreeRoot;
@@ -268,7 +329,14 @@ public class Source {
 	 * We also adjust all positions to conform with the raw input (undoing any positional shifts caused by preprocessing).
 	 */
 	private void rtrimPositions(List<Node> nodes, List<Comment> comments) {
-		final boolean[] whitespace = new boolean[preprocessed.length()];
+		if (whitespace == null) {
+			/* Process actual whitespace in preprocessed source data */
+			whitespace = new boolean[preprocessed.length()];
+			char[] chars = preprocessed.toCharArray();
+			for (int i = 0; i < chars.length; i++) if (Character.isWhitespace(chars[i])) whitespace[i] = true;
+		}
+		
+		final boolean[] whitespace = this.whitespace;
 		for (Comment comment : comments) {
 			Position p = comment.getPosition();
 			if (!p.isUnplaced()) {
@@ -276,11 +344,6 @@ public class Source {
 			}
 		}
 		
-		/* Process actual whitespace in preprocessed source data */ {
-			char[] chars = preprocessed.toCharArray();
-			for (int i = 0; i < chars.length; i++) if (Character.isWhitespace(chars[i])) whitespace[i] = true;
-		}
-		
 		for (Node node : nodes) node.accept(new ForwardingAstVisitor() {
 			@Override public boolean visitNode(Node node) {
 				Position p = node.getPosition();
@@ -306,7 +369,7 @@ public class Source {
 				
 				node.setPosition(new Position(start, end));
 				
-				return false;
+				return isDeferredBlock(node);
 			}
 		});
 	}
@@ -318,7 +381,7 @@ public class Source {
 				if (!p.isUnplaced()) {
 					node.setPosition(new Position(mapPosition(p.getStart()), mapPosition(p.getEnd())));
 				}
-				if (node instanceof Expression) {
+				if (node instanceof Expression && ((Expression)node).getParens() > 0) {
 					List<Position> list = ((Expression)node).astParensPositions();
 					if (list != null) {
 						ListIterator<Position> li = list.listIterator();
@@ -331,11 +394,15 @@ public class Source {
 						}
 					}
 				}
-				return false;
+				return isDeferredBlock(node);
 			}
 		});
 	}
 	
+	private static boolean isDeferredBlock(Node node) {
+		return node instanceof Block && ((Block) node).isDeferred();
+	}
+	
 	/**
 	 * Associates comments that are javadocs to the node they belong to, by checking if the node that immediately follows a javadoc node is a JavadocContainer.
 	 */
@@ -350,7 +417,7 @@ public class Source {
 					startPosMap.put(startPos, node);
 				}
 				
-				return false;
+				return isDeferredBlock(node);
 			}
 		});
 		
@@ -368,31 +435,136 @@ public class Source {
 		}
 	}
 	
-	void registerComment(Context<Node> context, Comment c) {
-		List<Comment> list = registeredComments.get(context);
-		if (list == null) {
-			list = Lists.newArrayList();
-			registeredComments.put(context.getSubNodes().get(0), list);
-		}
-		list.add(c);
+	/**
+	 * Leaves the contents of {@code block}, which spans the given positions in the preprocessed input, to be parsed on first access.
+	 */
+	void deferBlock(final Block block, final int start, final int end) {
+		block.deferContents(new Runnable() {
+			@Override public void run() {
+				parseDeferredBlock(block, start, end);
+			}
+		});
 	}
 	
 	/**
-	 * Delves through the parboiled node tree to find comments.
+	 * Parses a deferred block in place, using the same input, comment table and position mapping as the rest of this source, so that the
+	 * resulting nodes end up with the same positions (and javadoc) they would have had if the block had been parsed up front.
+	 * Synchronized, as deferred blocks of one tree may be accessed from several threads (for example by a parallel {@code SourcePrinter}),
+	 * and each parse updates the problem list, comment list and comment table of this source. The block itself is only touched at the very
+	 * end, so if anything before that throws, the block is left deferred and empty and the parse can be retried.
 	 */
-	private boolean gatherComments(org.parboiled.Node<Node> parsed) {
-		boolean foundComments = false;
-		for (org.parboiled.Node<Node> child : parsed.getChildren()) {
-			foundComments |= gatherComments(child);
+	private synchronized void parseDeferredBlock(Block block, int start, int end) {
+		/* Only the block itself is parsed. Positions in the parse are relative to start; parseOffset makes the comment table and
+		 * text interning see absolute positions, and the positions of the resulting nodes are shifted once the parse is done. */
+		if (bodyParsers == null) bodyParsers = new ParserGroup(this);
+		ParsingResult<Node> result;
+		parseOffset = start;
+		try {
+			result = RecoveringParseRunner.run(bodyParsers.statements.blockStatement(), preprocessed.substring(start, end));
+		} finally {
+			parseOffset = 0;
+		}
+		
+		List<ParseProblem> bodyProblems = Lists.newArrayList();
+		for (ParseError error : result.parseErrors) {
+			bodyProblems.add(new ParseProblem(new Position(mapPosition(start + error.getStartIndex()), mapPosition(start + error.getEndIndex())), error.toString()));
 		}
 		
-		List<Comment> cmts = registeredComments.get(parsed);
-		if (cmts != null) for (Comment c : cmts) {
-			comments.add(c);
-			return true;
+		Block parsed = null;
+		if (result.parseTreeRoot != null) {
+			if (result.parseTreeRoot.getValue() instanceof Block) parsed = (Block) result.parseTreeRoot.getValue();
+			else for (org.parboiled.Node<Node> child : result.parseTreeRoot.getChildren()) {
+				if (child.getValue() instanceof Block) parsed = (Block) child.getValue();
+			}
+		}
+		if (parsed == null) {
+			addProblems(bodyProblems);
+			return;
+		}
+		shiftPositions(parsed, start);
+		
+		List<Node> bodyNodes = Collections.<Node>singletonList(parsed);
+		List<Comment> bodyComments = materializeComments(start, end);
+		rtrimPositions(bodyNodes, bodyComments);
+		associateJavadoc(bodyComments, bodyNodes);
+		fixPositions(bodyNodes);
+		fixPositions(bodyComments);
+		
+		addProblems(bodyProblems);
+		if (!bodyComments.isEmpty()) {
+			List<Comment> merged = Lists.newArrayList(comments);
+			merged.addAll(bodyComments);
+			comments = Collections.unmodifiableList(merged);
 		}
 		
-		return foundComments;
+		block.rawContents().migrateAllFrom(parsed.rawContents());
+	}
+	
+	private void addProblems(List<ParseProblem> bodyProblems) {
+		if (bodyProblems.isEmpty()) return;
+		List<ParseProblem> merged = Lists.newArrayList(problems);
+		merged.addAll(bodyProblems);
+		problems = Collections.unmodifiableList(merged);
+	}
+	
+	private static void shiftPositions(Node tree, final int delta) {
+		tree.accept(new ForwardingAstVisitor() {
+			@Override public boolean visitNode(Node node) {
+				Position p = node.getPosition();
+				if (!p.isUnplaced()) node.setPosition(new Position(p.getStart() + delta, p.getEnd() + delta));
+				if (node instanceof Expression && ((Expression) node).getParens() > 0) {
+					List<Position> list = ((Expression) node).astParensPositions();
+					if (list != null) {
+						ListIterator<Position> li = list.listIterator();
+						while (li.hasNext()) {
+							Position parenPos = li.next();
+							if (!parenPos.isUnplaced()) li.set(new Position(parenPos.getStart() + delta, parenPos.getEnd() + delta));
+						}
+					}
+				}
+				return false;
+			}
+		});
+	}
+	
+	/**
+	 * Returns the text between the given positions in the preprocessed input. Repeated requests for the same text return the same string instance.
+	 */
+	String internText(int start, int end) {
+		return identifiers.intern(preprocessed, start + parseOffset, end + parseOffset);
+	}
+	
+	/**
+	 * Records a comment spanning the given positions in the preprocessed input. The comment rule can match the same comment many times
+	 * as the parser backtracks, so only the offsets are recorded here; the {@code Comment} nodes are created once the parse is done.
+	 */
+	void registerComment(int start, int end) {
+		start += parseOffset;
+		end += parseOffset;
+		Integer existing = registeredComments.get(start);
+		if (existing == null || existing < end) registeredComments.put(start, end);
+	}
+	
+	/**
+	 * Turns the recorded comment offsets that start between {@code from} (inclusive) and {@code to} (exclusive) into {@code Comment} nodes,
+	 * in source order. Any recorded range that overlaps an earlier comment (which can happen during error recovery) is skipped.
+	 */
+	private List<Comment> materializeComments(int from, int to) {
+		List<Comment> result = Lists.newArrayList();
+		int lastEnd = from;
+		for (Map.Entry<Integer, Integer> entry : registeredComments.subMap(from, to).entrySet()) {
+			int start = entry.getKey();
+			int end = entry.getValue();
+			if (start < lastEnd) continue;
+			lastEnd = end;
+			
+			boolean block = preprocessed.startsWith("/*", start);
+			String content = preprocessed.substring(start + 2, block ? end - 2 : end);
+			Comment c = new Comment().astBlockComment(block).astContent(content);
+			c.setPosition(new Position(start, end));
+			result.add(c);
+		}
+		return result;
 	}
 	
 	private void setPositionDelta(int position, int delta) {
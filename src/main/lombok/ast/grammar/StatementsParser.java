@@ -24,7 +24,11 @@ package lombok.ast.grammar;
 import lombok.ast.Node;
 
 import org.parboiled.BaseParser;
+import org.parboiled.MatcherContext;
 import org.parboiled.Rule;
+import org.parboiled.matchers.CharSetMatcher;
+import org.parboiled.support.Characters;
+import org.parboiled.support.InputBuffer;
 
 public class StatementsParser extends BaseParser<Node> {
 	final ParserGroup group;
@@ -105,6 +109,35 @@ public class StatementsParser extends BaseParser<Node> {
 				set(actions.createEmptyStatement()));
 	}
 	
+	/**
+	 * Statements that start with a keyword can't be anything else, so once one of these keywords is seen, only those statements are tried,
+	 * and otherwise they aren't tried at all.
+	 */
+	private static class StatementKeywordMatcher extends CharSetMatcher<Node> {
+		private static final String[] KEYWORDS = {
+			"if", "assert", "switch", "case", "default", "while", "do", "for", "break", "continue", "return", "synchronized", "throw", "try",
+		};
+		
+		public StatementKeywordMatcher() {
+			super(Characters.of("abcdefghijklmnopqrstuvwxyz"));
+		}
+		
+		@Override public boolean match(MatcherContext<Node> context) {
+			InputBuffer input = context.getInputBuffer();
+			int pos = context.getCurrentIndex();
+			char first = input.charAt(pos);
+			if (first < 'a' || first > 'z') return false;
+			
+			outer:
+			for (String keyword : KEYWORDS) {
+				if (keyword.charAt(0) != first) continue;
+				for (int i = 1; i < keyword.length(); i++) if (input.charAt(pos + i) != keyword.charAt(i)) continue outer;
+				if (!Character.isJavaIdentifierPart(input.charAt(pos + keyword.length()))) return true;
+			}
+			return false;
+		}
+	}
+	
 	/**
 	 * Labels aren't statements; instead they can prefix any statement. Something like {@code if (1 == 1) foo: a();} is legal.
 	 * Multiple labels for the same statement is also legal.
@@ -118,28 +151,30 @@ public class StatementsParser extends BaseParser<Node> {
 						Ch(':'),
 						group.basics.optWS())),
 				FirstOf(
-						blockStatement(),
-						localClassDeclaration(),
-						localVariableDeclaration(),
-						emptyStatement(),
-						expressionStatement(),
-						ifStatement(),
-						assertStatement(),
-						switchStatement(),
-						caseStatement(),
-						defaultStatement(),
-						whileStatement(),
-						doWhileStatement(),
-						basicForStatement(),
-						enhancedForStatement(),
-						breakStatement(),
-						continueStatement(),
-						returnStatement(),
-						synchronizedStatement(),
-						throwStatement(),
-						tryStatement(),
-						explicitAlternateConstructorInvocation(),
-						explicitSuperConstructorInvocation()
+						Sequence(Test(new StatementKeywordMatcher()), FirstOf(
+								ifStatement(),
+								assertStatement(),
+								switchStatement(),
+								caseStatement(),
+								defaultStatement(),
+								whileStatement(),
+								doWhileStatement(),
+								basicForStatement(),
+								enhancedForStatement(),
+								breakStatement(),
+								continueStatement(),
+								returnStatement(),
+								synchronizedStatement(),
+								throwStatement(),
+								tryStatement())),
+						Sequence(TestNot(new StatementKeywordMatcher()), FirstOf(
+								blockStatement(),
+								emptyStatement(),
+								Sequence(Test(new DeclarationKindMatcher(DeclarationKindMatcher.Kind.TYPE)), localClassDeclaration()),
+								Sequence(Test(new DeclarationKindMatcher(DeclarationKindMatcher.Kind.VARIABLE)), localVariableDeclaration()),
+								expressionStatement(),
+								explicitAlternateConstructorInvocation(),
+								explicitSuperConstructorInvocation()))
 				).label("statement"),
 				set(actions.createLabelledStatement(values("ZeroOrMore/Sequence/labelName"), value("statement"))));
 	}
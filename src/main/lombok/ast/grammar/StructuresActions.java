@@ -28,6 +28,7 @@ import lombok.ast.AnnotationDeclaration;
 import lombok.ast.AnnotationElement;
 import lombok.ast.AnnotationMethodDeclaration;
 import lombok.ast.ArrayInitializer;
+import lombok.ast.Block;
 import lombok.ast.ClassDeclaration;
 import lombok.ast.CompilationUnit;
 import lombok.ast.ConstructorDeclaration;
@@ -167,6 +168,16 @@ public class StructuresActions extends SourceActions {
 		return posify(new StaticInitializer().rawBody(body));
 	}
 	
+	public Node createDeferredBlock(org.parboiled.Node<Node> rawBlock) {
+		Block block = new Block();
+		if (rawBlock == null) return block;
+		int start = rawBlock.getStartIndex();
+		int end = Math.max(start, rawBlock.getEndIndex());
+		block.setPosition(new Position(start, end));
+		source.deferBlock(block, start, end);
+		return block;
+	}
+	
 	public Node createFieldDeclaration(Node variableDefinition, Node modifiers) {
 		if (modifiers != null && variableDefinition instanceof VariableDefinition) {
 			((VariableDefinition)variableDefinition).astModifiers(createModifiersIfNeeded(modifiers, currentPos()));
@@ -24,8 +24,13 @@ package lombok.ast.grammar;
 import lombok.ast.Node;
 
 import org.parboiled.BaseParser;
+import org.parboiled.MatcherContext;
 import org.parboiled.Rule;
 import org.parboiled.annotations.SuppressSubnodes;
+import org.parboiled.matchers.CharSetMatcher;
+import org.parboiled.support.Characters;
+import org.parboiled.support.Chars;
+import org.parboiled.support.InputBuffer;
 
 public class StructuresParser extends BaseParser<Node> {
 	final ParserGroup group;
@@ -44,12 +49,15 @@ public class StructuresParser extends BaseParser<Node> {
 				set(actions.posify(value())));
 	}
 	
+	/**
+	 * Each kind of declaration is only attempted if a quick scan of the upcoming tokens says it might be that kind, so that modifiers, types
+	 * and names aren't parsed over and over again by alternatives that are bound to fail.
+	 */
 	public Rule typeBodyMember() {
 		return FirstOf(
-				anyTypeDeclaration(),
-				fieldDeclaration(),
-				methodDeclaration(),
-				constructorDeclaration(),
+				Sequence(Test(new DeclarationKindMatcher(DeclarationKindMatcher.Kind.TYPE)), anyTypeDeclaration()),
+				Sequence(Test(new DeclarationKindMatcher(DeclarationKindMatcher.Kind.VARIABLE)), fieldDeclaration()),
+				Sequence(Test(new DeclarationKindMatcher(DeclarationKindMatcher.Kind.METHOD)), FirstOf(methodDeclaration(), constructorDeclaration())),
 				staticInitializer(),
 				instanceInitializer(),
 				emptyDeclaration());
@@ -198,7 +206,7 @@ public class StructuresParser extends BaseParser<Node> {
 						)).label("throwsClause"),
 				FirstOf(
 						Sequence(Ch(';'), group.basics.optWS()),
-						group.statements.blockStatement()).label("body"),
+						memberBody()).label("body"),
 				set(actions.createConstructorDeclaration(value("modifiers"), value("typeParameters"), value("typeName"), value("params"), 
 						value("throwsClause/Sequence/throwsHead"), values("throwsClause/Sequence/ZeroOrMore/throwsTail"),
 						value("body"))));
@@ -234,12 +242,100 @@ public class StructuresParser extends BaseParser<Node> {
 						)).label("throwsClause"),
 				FirstOf(
 						Sequence(Ch(';'), group.basics.optWS()),
-						group.statements.blockStatement()).label("body"),
+						memberBody()).label("body"),
 				set(actions.createMethodDeclaration(value("modifiers"), value("typeParameters"), value("resultType"), value("methodName"), value("params"), 
 						nodes("dims/dim"), value("throwsClause/Sequence/throwsHead"), values("throwsClause/Sequence/ZeroOrMore/throwsTail"),
 						value("body"))));
 	}
 	
+	/**
+	 * The body of a method, constructor or initializer. In outline mode the body is not parsed; it's matched by brace counting and turned into
+	 * a block that is parsed on first access.
+	 */
+	Rule memberBody() {
+		if (!group.isOutline()) return group.statements.blockStatement();
+		return Sequence(
+				new BalancedBlockMatcher().label("block"),
+				set(actions.createDeferredBlock(node("block"))),
+				group.basics.optWS());
+	}
+	
+	/**
+	 * Matches a brace-delimited block, skipping over nested blocks, string and character literals, and comments.
+	 * Fails without consuming anything if the block isn't closed.
+	 */
+	private static class BalancedBlockMatcher extends CharSetMatcher<Node> {
+		public BalancedBlockMatcher() {
+			super(Characters.of("{"));
+		}
+		
+		@Override public boolean match(MatcherContext<Node> context) {
+			if (context.getCurrentChar() != '{') return false;
+			InputBuffer input = context.getInputBuffer();
+			int start = context.getCurrentIndex();
+			int pos = start + 1;
+			int depth = 1;
+			
+			while (depth > 0) {
+				char c = input.charAt(pos++);
+				if (c == Chars.EOI) return false;
+				switch (c) {
+				case '{':
+					depth++;
+					break;
+				case '}':
+					depth--;
+					break;
+				case '"':
+				case '\'':
+					pos = skipLiteral(input, pos, c);
+					if (pos == -1) return false;
+					break;
+				case '/':
+					char next = input.charAt(pos);
+					if (next == '/') {
+						pos++;
+						while (true) {
+							char d = input.charAt(pos);
+							if (d == '\r' || d == '\n' || d == Chars.EOI) break;
+							pos++;
+						}
+					} else if (next == '*') {
+						pos++;
+						while (true) {
+							char d = input.charAt(pos++);
+							if (d == Chars.EOI) return false;
+							if (d == '*' && input.charAt(pos) == '/') {
+								pos++;
+								break;
+							}
+						}
+					}
+					break;
+				}
+			}
+			
+			for (int i = start; i < pos; i++) context.advanceIndex();
+			context.createNode();
+			return true;
+		}
+		
+		/**
+		 * Returns the position right after the closing quote, or -1 if the literal runs into a newline or the end of the input.
+		 */
+		private static int skipLiteral(InputBuffer input, int pos, char quote) {
+			while (true) {
+				char c = input.charAt(pos++);
+				if (c == quote) return pos;
+				if (c == '\\') {
+					pos++;
+					continue;
+				}
+				if (c == '\r' || c == '\n' || c == Chars.EOI) return -1;
+			}
+		}
+	}
+	
 	Rule methodParameters() {
 		return Sequence(
 				Ch('('), group.basics.optWS(),
@@ -264,14 +360,14 @@ public class StructuresParser extends BaseParser<Node> {
 	
 	public Rule instanceInitializer() {
 		return Sequence(
-				group.statements.blockStatement().label("initializer"),
+				memberBody().label("initializer"),
 				set(actions.createInstanceInitializer(value("initializer"))));
 	}
 	
 	public Rule staticInitializer() {
 		return Sequence(
 				String("static"), group.basics.testLexBreak(), group.basics.optWS(),
-				group.statements.blockStatement().label("initializer"),
+				memberBody().label("initializer"),
 				set(actions.createStaticInitializer(value("initializer"))));
 	}
 	
@@ -25,6 +25,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 
 import lombok.ast.Annotation;
 import lombok.ast.AnnotationElement;
@@ -40,10 +41,14 @@ import lombok.ast.UnaryExpression;
 import lombok.ast.UnaryOperator;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 class AnnotationProxy implements InvocationHandler {
+	private static final Object NULL_VALUE = new Object();
+	
 	private final Resolver resolver;
 	private final Annotation node;
+	private final ConcurrentMap<String, Object> resolvedValues = Maps.newConcurrentMap();
 	
 	AnnotationProxy(Resolver resolver, Annotation node) {
 		this.resolver = resolver;
@@ -128,8 +133,32 @@ class AnnotationProxy implements InvocationHandler {
 		return true;
 	}
 	
+	/**
+	 * Each annotation method's value is resolved on first access and cached; a failure to resolve is not cached and will be thrown again on the next call.
+	 * Arrays are cloned so that callers cannot modify the cached value.
+	 */
 	@Override
 	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		Object value = resolvedValues.get(name);
+		if (value == null) {
+			value = resolve(method);
+			if (value == null) value = NULL_VALUE;
+			resolvedValues.putIfAbsent(name, value);
+		}
+		
+		if (value == NULL_VALUE) return null;
+		if (value instanceof Object[]) return ((Object[]) value).clone();
+		if (value.getClass().isArray()) {
+			int length = Array.getLength(value);
+			Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+			System.arraycopy(value, 0, copy, 0, length);
+			return copy;
+		}
+		return value;
+	}
+	
+	private Object resolve(Method method) {
 		String name = method.getName();
 		Class<?> expectedType = method.getReturnType();
 		boolean array = false;
@@ -156,7 +185,7 @@ class AnnotationProxy implements InvocationHandler {
 						int dims = 0;
 						while (cName.endsWith("[]")) {
 							dims++;
-							cName = cName.substring(0, className.length() - 2);
+							cName = cName.substring(0, cName.length() - 2);
 						}
 						try {
 							Class<?> c = Resolver.PRIMITIVE_CLASS_MAP.get(cName);
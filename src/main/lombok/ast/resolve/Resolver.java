@@ -21,33 +21,31 @@
  */
 package lombok.ast.resolve;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import lombok.ast.Annotation;
-import lombok.ast.Block;
-import lombok.ast.CompilationUnit;
-import lombok.ast.EnumTypeBody;
 import lombok.ast.Expression;
 import lombok.ast.Identifier;
-import lombok.ast.ImportDeclaration;
 import lombok.ast.Node;
 import lombok.ast.NullLiteral;
-import lombok.ast.RawListAccessor;
 import lombok.ast.ResolutionException;
+import lombok.ast.ScopeIndex;
 import lombok.ast.Select;
-import lombok.ast.TypeBody;
-import lombok.ast.TypeDeclaration;
 import lombok.ast.TypeReference;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 
 /**
  * Contains simplistic (guesstimations) resolution that doesn't require full resolution and symbol lookup but it isn't perfect.
@@ -96,9 +94,13 @@ public class Resolver {
 			if (unexpectedType) throw new ResolutionException(value, "Expected " + enumClass.getName() + " and not " + packageName + "." + typeName);
 		}
 		
-		for (E enumConstant : enumClass.getEnumConstants()) {
-			String target = enumConstant.name();
-			if (target.equals(enumName)) return enumConstant;
+		/* Enum.valueOf looks the name up in a table that the enum class itself caches, so there's nothing to gain from a cache of our own. */
+		if (enumName != null) {
+			try {
+				return Enum.valueOf(enumClass, enumName);
+			} catch (IllegalArgumentException e) {
+				// fall through to the ResolutionException below.
+			}
 		}
 		
 		throw new ResolutionException(value, "Not a valid value for enum " + enumClass.getSimpleName() + ": " + enumName);
@@ -139,50 +141,19 @@ public class Resolver {
 		String wantedName = dot == -1 ? wanted : wanted.substring(dot + 1);
 		
 		if (name.indexOf('.') == -1 && wantedName.equals(name)) {
-			//name is definitely a simple name, and it might match. Walk up type tree and if it doesn't match any of those, delve into import statements.
-			Node n = typeReference.getParent();
-			CompilationUnit cu = null;
-			while (n != null) {
-				RawListAccessor<?, ?> list;
-				if (n instanceof Block) list = ((Block) n).rawContents();
-				else if (n instanceof TypeBody) list = ((TypeBody) n).rawMembers();
-				else if (n instanceof EnumTypeBody) list = ((EnumTypeBody) n).rawMembers();
-				else if (n instanceof CompilationUnit) {
-					list = ((CompilationUnit) n).rawTypeDeclarations();
-					cu = (CompilationUnit) n;
-				}
-				else list = null;
-				
-				if (list != null) {
-					for (Node c : ((Block) n).rawContents()) {
-						if (c instanceof TypeDeclaration && namesMatch(name, ((TypeDeclaration) c).astName())) return false;
-					}
-				}
-				
-				n = n.getParent();
-			}
+			//name is definitely a simple name, and it might match. If it's shadowed by a type declared in an enclosing scope it doesn't; otherwise, delve into import statements.
+			ScopeIndex index = ScopeIndex.of(typeReference);
+			if (index.isShadowed(name, typeReference.getParent())) return false;
 			
 			//A locally defined type is definitely not what's targetted so it could still be our wanted type reference. Let's check imports.
-			if (wantedPkg.isEmpty()) return cu == null || cu.rawPackageDeclaration() == null;
+			if (wantedPkg.isEmpty()) return !index.isCompilationUnit() || !index.hasPackageDeclaration();
 			
-			if (cu != null) {
-				for (Node imp : cu.rawImportDeclarations()) {
-					if (!(imp instanceof ImportDeclaration)) continue;
-					ImportDeclaration i = (ImportDeclaration) imp;
-					String impName = i.asFullyQualifiedName();
-					if (!i.astStaticImport() && i.astStarImport() && wantedPkg.equals(impName)) return true;
-					if (impName.equals(wanted)) return true;
-				}
-			}
+			return index.isStarImported(wantedPkg) || index.isImported(wanted);
 		}
 		
 		return false;
 	}
 	
-	private boolean namesMatch(String name, Identifier astName) {
-		return name == null ? astName.astValue() == null : name.equals(astName.astValue());
-	}
-	
 	/**
 	 * Use together with {@link #toAnnotationInstance(Class, Annotation)}.
 	 * 
@@ -252,7 +223,34 @@ public class Resolver {
 	 * @see #getAnnotationClassAsString(java.lang.annotation.Annotation, String)
 	 */
 	public <A extends java.lang.annotation.Annotation> A toAnnotationInstance(final Class<A> type, final Annotation node) {
-		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[] { type }, new AnnotationProxy(this, node)));
+		try {
+			return type.cast(proxyConstructorFor(type).newInstance(new AnnotationProxy(this, node)));
+		} catch (InstantiationException e) {
+			throw new IllegalStateException("Can't create proxy for " + type.getName(), e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException("Can't create proxy for " + type.getName(), e);
+		} catch (InvocationTargetException e) {
+			throw new IllegalStateException("Can't create proxy for " + type.getName(), e.getCause());
+		}
+	}
+	
+	/*
+	 * Soft values: a constructor references its proxy class, and through it the annotation type, which would otherwise keep the key alive.
+	 * Weak values would do that too, but nothing but this map refers to the constructor, so it would be gone at the next collection.
+	 */
+	private static final ConcurrentMap<Class<?>, Constructor<?>> PROXY_CONSTRUCTORS = new MapMaker().weakKeys().softValues().makeMap();
+	
+	private static Constructor<?> proxyConstructorFor(Class<? extends java.lang.annotation.Annotation> type) {
+		Constructor<?> constructor = PROXY_CONSTRUCTORS.get(type);
+		if (constructor != null) return constructor;
+		
+		try {
+			constructor = Proxy.getProxyClass(type.getClassLoader(), type).getConstructor(InvocationHandler.class);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("Proxy class for " + type.getName() + " has no InvocationHandler constructor", e);
+		}
+		PROXY_CONSTRUCTORS.putIfAbsent(type, constructor);
+		return constructor;
 	}
 	
 	private List<String> unwrapSelectChain(Select s) {
@@ -24,10 +24,6 @@ package lombok.ast.syntaxChecks;
 import static lombok.ast.syntaxChecks.MessageKey.*;
 import static lombok.ast.Message.*;
 
-import java.util.Map;
-
-import com.google.common.collect.Maps;
-
 import lombok.ast.ForwardingAstVisitor;
 import lombok.ast.Node;
 
@@ -36,26 +32,12 @@ import lombok.ast.Node;
  * the generated {@code SyntacticValidityVisitor}.
  */
 public class SyntacticValidityVisitorBase extends ForwardingAstVisitor {
-	final Map<Class<?>, Object> checkerObjectStore = Maps.newHashMap();
 	final boolean recursing;
 	
 	SyntacticValidityVisitorBase(boolean recursing) {
 		this.recursing = recursing;
 	}
 	
-	@SuppressWarnings("unchecked")
-	<T> T getCheckerObject(Class<T> clazz) {
-		Object o = checkerObjectStore.get(clazz);
-		if (o != null) return (T)o;
-		try {
-			o = clazz.newInstance();
-		} catch (Exception e) {
-			throw new IllegalStateException("Class " + clazz.getName() + " could not be constructed. Does it have a public no-args constructort?", e);
-		}
-		checkerObjectStore.put(clazz, o);
-		return (T)o;
-	}
-	
 	/**
 	 * Checks if a given child is syntactically valid; you specify exactly what is required for this to hold in the parameters.
 	 * This method will recursively call {@link #checkSyntacticValidity()} on the child.
@@ -67,26 +49,36 @@ public class SyntacticValidityVisitorBase extends ForwardingAstVisitor {
 	 * @param typeAssertion If the node exists, it must be an instance of this type.
 	 */
 	void checkChildValidity(Node node, Node child, String name, boolean mandatory, Class<?> typeAssertion) {
-		verifyNodeRelation(node, child, name, mandatory, typeAssertion);
+		verifyNodeRelation0(node, child, name, -1, mandatory, typeAssertion);
+	}
+	
+	/**
+	 * Like {@link #checkChildValidity(Node, Node, String, boolean, Class)}, but for an element of a list. The name reported in any error
+	 * message is {@code name[index]}; it is only built if there is an error to report.
+	 */
+	void checkChildValidity(Node node, Node child, String name, int index, boolean mandatory, Class<?> typeAssertion) {
+		verifyNodeRelation0(node, child, name, index, mandatory, typeAssertion);
 	}
 	
 	public static boolean verifyNodeRelation(Node parent, Node child, String name, boolean mandatory, Class<?> typeAssertion) {
-		String typeAssertionName = typeAssertion.getSimpleName().toLowerCase();
-		boolean typeAssertionVowel = startsWithVowel(typeAssertionName);
-		
+		return verifyNodeRelation0(parent, child, name, -1, mandatory, typeAssertion);
+	}
+	
+	private static boolean verifyNodeRelation0(Node parent, Node child, String name, int index, boolean mandatory, Class<?> typeAssertion) {
 		if (child == null) {
 			if (mandatory) {
 				parent.addMessage(error(NODE_MISSING_MANDATORY_CHILD, String.format("Missing %s %s",
-						name, typeAssertion.getSimpleName().toLowerCase())));
+						indexedName(name, index), typeAssertion.getSimpleName().toLowerCase())));
 				return false;
 			}
 		} else {
 			if (!typeAssertion.isInstance(child)) {
+				String typeAssertionName = typeAssertion.getSimpleName().toLowerCase();
 				String actualName = child.getClass().getSimpleName();
 				child.addMessage(error(NODE_CHILD_TYPE_INCORRECT, String.format(
 						"%s isn't a%s %s but a%s %s",
-						name,
-						typeAssertionVowel ? "n" : "", typeAssertionName,
+						indexedName(name, index),
+						startsWithVowel(typeAssertionName) ? "n" : "", typeAssertionName,
 						startsWithVowel(actualName) ? "n" : "", actualName)));
 				return false;
 			}
@@ -95,6 +87,10 @@ public class SyntacticValidityVisitorBase extends ForwardingAstVisitor {
 		return true;
 	}
 	
+	private static String indexedName(String name, int index) {
+		return index == -1 ? name : name + "[" + index + "]";
+	}
+	
 	private static boolean startsWithVowel(String typeAssertionName) {
 		boolean typeAssertionVowel = typeAssertionName.isEmpty();
 		if (!typeAssertionVowel) {
@@ -26,37 +26,118 @@ import static lombok.ast.Message.*;
 
 import lombok.ast.Block;
 import lombok.ast.Break;
+import lombok.ast.Case;
+import lombok.ast.Catch;
 import lombok.ast.Continue;
+import lombok.ast.Default;
+import lombok.ast.DoWhile;
+import lombok.ast.For;
+import lombok.ast.ForEach;
+import lombok.ast.If;
+import lombok.ast.LabelledStatement;
 import lombok.ast.Node;
 import lombok.ast.Return;
-import lombok.ast.Statement;
+import lombok.ast.Switch;
+import lombok.ast.Synchronized;
+import lombok.ast.Throw;
+import lombok.ast.Try;
+import lombok.ast.While;
 import lombok.ast.template.SyntaxCheck;
 
 @SyntaxCheck
 public class UnreachableStatementsChecks {
-	public void unreachablesAfterBreak(Break statement) {
-		checkForUnreachables(statement);
+	/**
+	 * Reports the first statement of every unreachable run of statements in a block. A statement is unreachable if the statement before it
+	 * cannot complete normally; a {@code case} or {@code default} label makes the statements following it reachable again.
+	 */
+	public void unreachablesInBlock(Block block) {
+		boolean reachable = true;
+		for (Node s : block.rawContents()) {
+			if (s instanceof Case || s instanceof Default) {
+				reachable = true;
+				continue;
+			}
+			
+			if (!reachable) {
+				s.addMessage(error(STATEMENT_UNREACHABLE, "Unreachable code"));
+				reachable = true;
+				continue;
+			}
+			
+			reachable = canCompleteNormally(s);
+		}
 	}
 	
-	public void unreachablesAfterContinue(Continue statement) {
-		checkForUnreachables(statement);
+	/**
+	 * Conservative approximation of JLS 14.20: When in doubt (loops, {@code try}, labelled statements), a statement is assumed to complete normally.
+	 */
+	private static boolean canCompleteNormally(Node s) {
+		if (s instanceof Break || s instanceof Continue || s instanceof Return || s instanceof Throw) return false;
+		if (s instanceof Block) {
+			Node last = ((Block) s).rawContents().last();
+			return last == null || canCompleteNormally(last);
+		}
+		if (s instanceof Synchronized) {
+			Block body = ((Synchronized) s).rawBody();
+			return body == null || canCompleteNormally(body);
+		}
+		if (s instanceof If) {
+			If i = (If) s;
+			if (i.rawElseStatement() == null || i.rawStatement() == null) return true;
+			return canCompleteNormally(i.rawStatement()) || canCompleteNormally(i.rawElseStatement());
+		}
+		if (s instanceof Switch) return switchCanCompleteNormally((Switch) s);
+		return true;
 	}
 	
-	public void unreachableAfterReturn(Return statement) {
-		checkForUnreachables(statement);
+	private static boolean switchCanCompleteNormally(Switch s) {
+		Block body = s.rawBody();
+		if (body == null) return true;
+		
+		Node last = body.rawContents().last();
+		if (last == null || last instanceof Case || last instanceof Default) return true;
+		if (canCompleteNormally(last)) return true;
+		
+		boolean hasDefault = false;
+		for (Node n : body.rawContents()) {
+			if (n instanceof Default) hasDefault = true;
+		}
+		if (!hasDefault) return true;
+		
+		for (Node n : body.rawContents()) {
+			if (containsBreakOut(n, false)) return true;
+		}
+		return false;
 	}
 	
-	private void checkForUnreachables(Statement n) {
-		Block b = n.upToBlock();
-		if (b == null) return;
-		
-		boolean found = false;
-		for (Node s : b.rawContents()) {
-			if (found) {
-				s.addMessage(error(STATEMENT_UNREACHABLE, "Unreachable code"));
-				return;
+	/**
+	 * Returns {@code true} if the statement contains a {@code break} that could exit the enclosing switch. Any labelled break counts.
+	 */
+	private static boolean containsBreakOut(Node s, boolean nestedBreakable) {
+		if (s instanceof Break) return !nestedBreakable || ((Break) s).rawLabel() != null;
+		if (s instanceof Block) {
+			for (Node n : ((Block) s).rawContents()) if (containsBreakOut(n, nestedBreakable)) return true;
+			return false;
+		}
+		if (s instanceof If) {
+			If i = (If) s;
+			return containsBreakOut(i.rawStatement(), nestedBreakable) || containsBreakOut(i.rawElseStatement(), nestedBreakable);
+		}
+		if (s instanceof LabelledStatement) return containsBreakOut(((LabelledStatement) s).rawStatement(), nestedBreakable);
+		if (s instanceof Synchronized) return containsBreakOut(((Synchronized) s).rawBody(), nestedBreakable);
+		if (s instanceof Try) {
+			Try t = (Try) s;
+			if (containsBreakOut(t.rawBody(), nestedBreakable) || containsBreakOut(t.rawFinally(), nestedBreakable)) return true;
+			for (Node c : t.rawCatches()) {
+				if (c instanceof Catch && containsBreakOut(((Catch) c).rawBody(), nestedBreakable)) return true;
 			}
-			if (s == n) found = true;
+			return false;
 		}
+		if (s instanceof While) return containsBreakOut(((While) s).rawStatement(), true);
+		if (s instanceof DoWhile) return containsBreakOut(((DoWhile) s).rawStatement(), true);
+		if (s instanceof For) return containsBreakOut(((For) s).rawStatement(), true);
+		if (s instanceof ForEach) return containsBreakOut(((ForEach) s).rawStatement(), true);
+		if (s instanceof Switch) return containsBreakOut(((Switch) s).rawBody(), true);
+		return false;
 	}
 }
@@ -22,6 +22,13 @@
 package lombok.ast.printer;
 
 import static lombok.ast.printer.SourceFormatter.FAIL;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 import lombok.ast.AlternateConstructorInvocation;
 import lombok.ast.Annotation;
 import lombok.ast.AnnotationDeclaration;
@@ -102,11 +109,27 @@ import lombok.ast.VariableReference;
 import lombok.ast.While;
 import lombok.ast.WildcardKind;
 
+import com.google.common.collect.Lists;
+
 public class SourcePrinter extends ForwardingAstVisitor {
 	private final SourceFormatter formatter;
+	private final ExecutorService executor;
 	
 	public SourcePrinter(SourceFormatter formatter) {
+		this(formatter, null);
+	}
+	
+	/**
+	 * Creates a printer that prints the members of top-level types in parallel using the provided executor.
+	 * 
+	 * Each member is printed into its own {@link TextFormatter#fork() forked} formatter and the results are joined in order, so the output is
+	 * identical to that of a sequential print. If the formatter cannot be forked, printing is sequential.
+	 * 
+	 * @param executor The executor to print members on. Can be {@code null}, which means all printing is sequential.
+	 */
+	public SourcePrinter(SourceFormatter formatter, ExecutorService executor) {
 		this.formatter = formatter;
+		this.executor = executor;
 	}
 	
 	//Private utility methods
@@ -167,6 +190,52 @@ public class SourcePrinter extends ForwardingAstVisitor {
 		visitAll0(relation, nodes, separator, prefix, suffix, false);
 	}
 	
+	private void visitMembers(Node typeBody, RawListAccessor<?, ?> members) {
+		if (executor == null || members.size() < 2 || !(formatter instanceof TextFormatter) || !((TextFormatter) formatter).canFork()) {
+			visitAll(members, "\n", "", "");
+			return;
+		}
+		
+		Node type = typeBody.getParent();
+		if (type == null || !(type.getParent() instanceof CompilationUnit)) {
+			visitAll(members, "\n", "", "");
+			return;
+		}
+		
+		TextFormatter parent = (TextFormatter) formatter;
+		List<Future<TextFormatter>> parts = Lists.newArrayList();
+		for (final Node member : members) {
+			final TextFormatter child = parent.fork();
+			parts.add(executor.submit(new Callable<TextFormatter>() {
+				@Override public TextFormatter call() {
+					member.accept(new SourcePrinter(child));
+					return child;
+				}
+			}));
+		}
+		
+		boolean first = true;
+		for (Future<TextFormatter> part : parts) {
+			if (!first) append("\n");
+			first = false;
+			parent.join(getPart(part));
+		}
+	}
+	
+	private static TextFormatter getPart(Future<TextFormatter> part) {
+		try {
+			return part.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new RuntimeException(cause);
+		}
+	}
+	
 	private boolean isValidJavaIdentifier(String in) {
 		if (in == null || in.length() == 0) return false;
 		
@@ -1054,7 +1123,7 @@ public class SourcePrinter extends ForwardingAstVisitor {
 			formatter.append(";");
 			formatter.verticalSpace();
 		}
-		visitAll(node.rawMembers(), "\n", "", "");
+		visitMembers(node, node.rawMembers());
 		formatter.closeBlock();
 		formatter.append("}");
 		formatter.closeBlock();
@@ -1066,7 +1135,7 @@ public class SourcePrinter extends ForwardingAstVisitor {
 		formatter.buildBlock(node);
 		formatter.append("{");
 		formatter.buildBlock(null);
-		visitAll(node.rawMembers(), "\n", "", "");
+		visitMembers(node, node.rawMembers());
 		formatter.closeBlock();
 		formatter.append("}");
 		formatter.closeBlock();
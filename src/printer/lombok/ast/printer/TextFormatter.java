@@ -36,6 +36,7 @@ public class TextFormatter implements SourceFormatter {
 	private final List<String> errors = Lists.newArrayList();
 	private int indent;
 	private boolean suppress, newline;
+	private boolean continuation;
 	
 	protected void setNewlineText(String newlineText) {
 		this.newlineText = newlineText;
@@ -109,7 +110,7 @@ public class TextFormatter implements SourceFormatter {
 	}
 	
 	private void printIndent() {
-		if (sb.length() > 0) sb.append(newlineText);
+		if (sb.length() > 0 || continuation) sb.append(newlineText);
 		for (int i = 0; i < indent; i++) sb.append(INDENT);
 	}
 	
@@ -136,6 +137,38 @@ public class TextFormatter implements SourceFormatter {
 		errors.add(String.format("%d-%d: %s", errorStart, errorEnd, errorMessage));
 	}
 	
+	/**
+	 * Returns {@code true} if {@link #fork()} produces a formatter whose output can be {@link #join(TextFormatter) joined} back into this one.
+	 * Subclasses that track positions or other per-character state cannot be forked and return {@code false}.
+	 */
+	public boolean canFork() {
+		return getClass() == TextFormatter.class;
+	}
+	
+	/**
+	 * Creates a new formatter with an empty buffer that continues from the current indentation and newline state of this formatter,
+	 * so that printing a block element into it and then {@link #join(TextFormatter) joining} it yields the same text as printing
+	 * that element into this formatter directly.
+	 */
+	public TextFormatter fork() {
+		if (!canFork()) throw new UnsupportedOperationException(getClass().getName() + " cannot be forked");
+		TextFormatter child = new TextFormatter();
+		child.newlineText = newlineText;
+		child.indent = indent;
+		child.newline = newline;
+		child.continuation = continuation || sb.length() > 0;
+		return child;
+	}
+	
+	/**
+	 * Appends the output of a formatter produced by {@link #fork()} to this formatter, and continues from the state that formatter ended in.
+	 */
+	public void join(TextFormatter child) {
+		sb.append(child.sb);
+		errors.addAll(child.errors);
+		newline = child.newline;
+	}
+	
 	@Override public String finish() {
 		if (!errors.isEmpty()) {
 			a(newlineText).a(newlineText).a(newlineText).a("ERRORS: ").a(newlineText);
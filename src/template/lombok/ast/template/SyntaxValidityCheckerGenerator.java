@@ -101,6 +101,10 @@ public class SyntaxValidityCheckerGenerator {
 		types.put(toSimpleName(className), fields);
 	}
 	
+	private static String toCheckerFieldName(String className) {
+		return "checker" + toSimpleName(className);
+	}
+	
 	private static String toSimpleName(String className) {
 		int idx = Math.max(className.lastIndexOf('.'), className.lastIndexOf('$'));
 		return idx == -1 ? className : className.substring(idx + 1);
@@ -131,6 +135,20 @@ public class SyntaxValidityCheckerGenerator {
 		out.write(" * which do not support the + operator.\n");
 		out.write(" */\n");
 		out.write("public class SyntacticValidityVisitor extends lombok.ast.syntaxChecks.SyntacticValidityVisitorBase {\n");
+		Set<String> checkerTypes = new TreeSet<String>();
+		for (List<MethodData> methods : checkMethods.values()) for (MethodData method : methods) {
+			if (!method.isStatic()) checkerTypes.add(method.getTypeName());
+		}
+		for (String checkerType : checkerTypes) {
+			out.write("\tprivate final ");
+			out.write(checkerType);
+			out.write(" ");
+			out.write(toCheckerFieldName(checkerType));
+			out.write(" = new ");
+			out.write(checkerType);
+			out.write("();\n");
+		}
+		if (!checkerTypes.isEmpty()) out.write("\t\n");
 		out.write("\tpublic SyntacticValidityVisitor(boolean recursing) {\n");
 		out.write("\t\tsuper(recursing);\n");
 		out.write("\t}\n");
@@ -175,9 +193,9 @@ public class SyntaxValidityCheckerGenerator {
 					out.write(method.getMethodName());
 					out.write("(node);\n");
 				} else {
-					out.write("this.getCheckerObject(");
-					out.write(method.getTypeName());
-					out.write(".class).");
+					out.write("this.");
+					out.write(toCheckerFieldName(method.getTypeName()));
+					out.write(".");
 					out.write(method.getMethodName());
 					out.write("(node);\n");
 				}
@@ -201,7 +219,7 @@ public class SyntaxValidityCheckerGenerator {
 		out.write("()) {\n");
 		out.write("\t\t\tthis.checkChildValidity(node, child, \"");
 		out.write(field.getName());
-		out.write("[\" + counter++ + \"]\", true, ");
+		out.write("\", counter++, true, ");
 		out.write(field.getType().toString());
 		out.write(".class);\n");
 		out.write("\t\t}\n");
@@ -938,6 +938,7 @@ public class TemplateProcessor extends AbstractProcessor {
 				"\t\t} catch (Exception e) {\n" +
 				"\t\t\tthis.errorReasonFor%2$s = e.toString();\n" +
 				"\t\t}\n" +
+				"\t\tthis.invalidateTreeCaches();\n" +
 				"\t\treturn this;\n" +
 				"\t}\n", params));
 	}
@@ -1000,7 +1001,7 @@ public class TemplateProcessor extends AbstractProcessor {
 				out.write(" : ");
 				out.write(field.getName());
 			}
-			out.write(";\n\t\treturn this;\n");
+			out.write(";\n\t\tthis.invalidateTreeCaches();\n\t\treturn this;\n");
 		}
 		
 		out.write("\t}\n\t\n");
@@ -1039,7 +1040,7 @@ public class TemplateProcessor extends AbstractProcessor {
 		out.write(field.getRawFormGenerator());
 		out.write("(");
 		out.write(field.getName());
-		out.write(");\n\t\treturn this;\n\t}\n\t\n");
+		out.write(");\n\t\tthis.invalidateTreeCaches();\n\t\treturn this;\n\t}\n\t\n");
 	}
 	
 	private void generateFieldsForBasic(Writer out, FieldData field) throws IOException {
@@ -0,0 +1,14 @@
+class C011_InstanceOfInBinaryExpressions {
+    {
+        Object a = "a";
+        Object b = 5;
+        boolean c = true;
+        boolean and = c && a instanceof String;
+        boolean andChain = a instanceof String && b instanceof Integer && c;
+        boolean or = c || a instanceof String;
+        boolean orChain = a instanceof Number || b instanceof Number;
+        boolean equals = c == b instanceof Integer;
+        boolean notEquals = a instanceof String != b instanceof String;
+        boolean mixed = c && a instanceof CharSequence || c == b instanceof Number;
+    }
+}
\ No newline at end of file
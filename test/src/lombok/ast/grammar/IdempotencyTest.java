@@ -28,6 +28,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import lombok.ast.Node;
 import lombok.ast.grammar.RunForEachFileInDirRunner.DirDescriptor;
@@ -68,4 +70,41 @@ public class IdempotencyTest extends RunForEachFileInDirRunner.SourceFileBasedTe
 			throw e;
 		}
 	}
+	
+	@Test
+	public void testOutlineParsingMatchesFullParsing(Source source) throws IOException {
+		source.parseCompilationUnit();
+		TextFormatter full = new TextFormatter();
+		source.getNodes().get(0).accept(new SourcePrinter(full));
+		
+		Source outline = new Source(source.getRawInput(), source.getName());
+		outline.parseCompilationUnitOutline();
+		TextFormatter lazy = new TextFormatter();
+		outline.getNodes().get(0).accept(new SourcePrinter(lazy));
+		
+		assertEquals(full.finish(), lazy.finish());
+		assertEquals(source.getProblems(), outline.getProblems());
+	}
+	
+	@Test
+	public void testParallelPrintingMatchesSequential(Source source) throws IOException {
+		source.parseCompilationUnit();
+		
+		if (!source.getProblems().isEmpty()) {
+			fail(source.getProblems().get(0).toString());
+		}
+		
+		Node node = source.getNodes().get(0);
+		TextFormatter sequential = new TextFormatter();
+		node.accept(new SourcePrinter(sequential));
+		
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			TextFormatter parallel = new TextFormatter();
+			node.accept(new SourcePrinter(parallel, executor));
+			assertEquals(sequential.finish(), parallel.finish());
+		} finally {
+			executor.shutdown();
+		}
+	}
 }
@@ -169,6 +169,22 @@ public class IntegralLiteralTest {
 		assertEquals(LiteralType.HEXADECIMAL, n.astLiteralType());
 		assertFalse(n.astMarkedAsLong());
 		assertNotNull(n.getErrorReasonForValue());
+		
+		n.rawValue("0X7fL");
+		assertEquals(LiteralType.HEXADECIMAL, n.astLiteralType());
+		assertEquals(0x7F, n.astLongValue());
+		assertTrue(n.astMarkedAsLong());
+		assertNull(n.getErrorReasonForValue());
+		
+		n.rawValue("0777");
+		assertEquals(LiteralType.OCTAL, n.astLiteralType());
+		assertEquals(0777, n.astIntValue());
+		assertNull(n.getErrorReasonForValue());
+		
+		n.rawValue("09");
+		assertNotNull(n.getErrorReasonForValue());
+		n.rawValue("0x");
+		assertNotNull(n.getErrorReasonForValue());
 	}
 	
 	@Test
@@ -181,5 +197,18 @@ public class IntegralLiteralTest {
 		
 		n.rawValue("100000000000000000000000000L");
 		assertNotNull(n.getErrorReasonForValue());
+		
+		n.rawValue("9223372036854775808L");
+		assertEquals(Long.MIN_VALUE, n.astLongValue());
+		
+		n.rawValue("18446744073709551616L");
+		assertNotNull(n.getErrorReasonForValue());
+		
+		n.rawValue("01777777777777777777777L");
+		assertNull(n.getErrorReasonForValue());
+		assertEquals(-1L, n.astLongValue());
+		
+		n.rawValue("02000000000000000000000L");
+		assertNotNull(n.getErrorReasonForValue());
 	}
 }
@@ -50,7 +50,10 @@ import org.junit.runner.RunWith;
 import org.parboiled.Parboiled;
 import org.parboiled.ReportingParseRunner;
 
+import com.google.common.base.Charsets;
 import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
 import com.sun.tools.javac.main.JavaCompiler;
 import com.sun.tools.javac.util.Context;
 
@@ -61,6 +64,10 @@ public class PerformanceTest extends RunForEachFileInDirRunner.SourceFileBasedTe
 	private static final boolean EXTENDED = System.getProperty("lombok.ast.test.extended") != null;
 	private static final double MAX_FACTOR = 15;
 	private static long javacTotal, lombokTotal, ecjTotal, parboiledTotal;
+	private static long javacFreshTotal, javacReusedTotal, ecjFreshTotal, ecjReusedTotal;
+	private JavaCompiler reusedJavac;
+	private Parser reusedEcj;
+	private static boolean firstParseMeasured;
 	
 	@BeforeClass
 	public void init() {
@@ -79,6 +86,10 @@ public class PerformanceTest extends RunForEachFileInDirRunner.SourceFileBasedTe
 					javacTotal, (double)lombokTotal / javacTotal,
 					ecjTotal, (double)lombokTotal / ecjTotal, (double)ecjTotal / javacTotal,
 					parboiledTotal, (double)lombokTotal / parboiledTotal, (double)parboiledTotal / javacTotal);
+			System.out.printf("[%20s / %30s] javac fresh: %5d reused: %5d [%6.02f] ecj fresh: %5d reused: %5d [%6.02f]\n",
+					"", "*** FRONT END REUSE ***",
+					javacFreshTotal, javacReusedTotal, (double)javacFreshTotal / javacReusedTotal,
+					ecjFreshTotal, ecjReusedTotal, (double)ecjFreshTotal / ecjReusedTotal);
 		}
 	}
 	
@@ -181,6 +192,107 @@ public class PerformanceTest extends RunForEachFileInDirRunner.SourceFileBasedTe
 		return true;
 	}
 	
+	/**
+	 * Compares setting up a new javac compiler and ecj parser for every parse (which is what {@link #testPerformance(Source)} does) with
+	 * reusing one instance for all files.
+	 */
+	@Test
+	public boolean testFrontEndReuse(Source source) {
+		if (!EXTENDED) return false;
+		if (reusedJavac == null) reusedJavac = createJavac();
+		if (reusedEcj == null) reusedEcj = createEcjParser();
+		
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) parseWithJavac(createJavac(), source);
+		javacFreshTotal += System.currentTimeMillis() - start;
+		
+		start = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) parseWithJavac(reusedJavac, source);
+		javacReusedTotal += System.currentTimeMillis() - start;
+		
+		start = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) parseWithEcj(createEcjParser(), source);
+		ecjFreshTotal += System.currentTimeMillis() - start;
+		
+		start = System.currentTimeMillis();
+		for (int i = 0; i < REPS; i++) parseWithEcj(reusedEcj, source);
+		ecjReusedTotal += System.currentTimeMillis() - start;
+		
+		return true;
+	}
+	
+	/**
+	 * Measures, in a fresh VM, how long parsing the first test file takes with the parser classes that the build precompiled, and with
+	 * parboiled generating them at runtime. Only the first file is measured, as each measurement starts 2 VMs.
+	 */
+	@Test
+	public boolean testTimeToFirstParse(Source source) throws Exception {
+		if (!EXTENDED || firstParseMeasured) return false;
+		firstParseMeasured = true;
+		
+		File file = File.createTempFile("firstParse", ".java");
+		try {
+			Files.write(source.getRawInput(), file, Charsets.UTF_8);
+			long precompiled = timeFirstParse(file, true);
+			long generated = timeFirstParse(file, false);
+			if (VERBOSE) {
+				System.out.printf("[%20s / %30s] precompiled: %5d generated: %5d [%6.02f]\n",
+						"", "*** TIME TO FIRST PARSE ***", precompiled, generated, (double)generated / precompiled);
+			}
+		} finally {
+			file.delete();
+		}
+		return true;
+	}
+	
+	private long timeFirstParse(File file, boolean precompiled) throws Exception {
+		String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+		Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				"-Dlombok.ast.precompiledParsers=" + precompiled, FirstParse.class.getName(), file.getPath())
+				.redirectErrorStream(true).start();
+		String output = new String(ByteStreams.toByteArray(process.getInputStream()), "UTF-8").trim();
+		if (process.waitFor() != 0) fail("Measuring time to first parse failed:\n" + output);
+		return Long.parseLong(output.substring(output.lastIndexOf('\n') + 1));
+	}
+	
+	/**
+	 * Parses the given file once and prints the time that took in milliseconds.
+	 */
+	public static class FirstParse {
+		public static void main(String[] args) throws IOException {
+			String content = Files.toString(new File(args[0]), Charsets.UTF_8);
+			long start = System.nanoTime();
+			new Source(content, args[0]).parseCompilationUnit();
+			System.out.println((System.nanoTime() - start) / 1000000);
+		}
+	}
+	
+	private JavaCompiler createJavac() {
+		JavaCompiler compiler = new JavaCompiler(new Context());
+		compiler.genEndPos = true;
+		return compiler;
+	}
+	
+	private void parseWithJavac(JavaCompiler compiler, Source source) {
+		compiler.parse(new ContentBasedJavaFileObject(source.getName(), source.getRawInput()));
+	}
+	
+	private Parser createEcjParser() {
+		CompilerOptions compilerOptions = ecjCompilerOptions();
+		Parser parser = new Parser(new ProblemReporter(
+				DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+				compilerOptions,
+				new DefaultProblemFactory()
+			), compilerOptions.parseLiteralExpressionsAsConstants);
+		parser.javadocParser.checkDocComment = true;
+		return parser;
+	}
+	
+	private void parseWithEcj(Parser parser, Source source) {
+		CompilationUnit sourceUnit = new CompilationUnit(source.getRawInput().toCharArray(), source.getName(), "UTF-8");
+		parser.parse(sourceUnit, new CompilationResult(sourceUnit, 0, 0, 0));
+	}
+	
 	private void parseWithParboiled(Source source) {
 		if (VERBOSE) {
 			ParboiledJavaGrammar parser = Parboiled.createParser(ParboiledJavaGrammar.class);
@@ -23,6 +23,8 @@ package lombok.ast.grammar;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
@@ -30,6 +32,10 @@ import java.util.Collections;
 import java.util.List;
 
 import lombok.ast.AstException;
+import lombok.ast.AstStore;
+import lombok.ast.BinaryAstReader;
+import lombok.ast.BinaryAstWriter;
+import lombok.ast.ForwardingAstVisitor;
 import lombok.ast.Node;
 import lombok.ast.grammar.RunForEachFileInDirRunner.DirDescriptor;
 import lombok.ast.printer.SourcePrinter;
@@ -38,6 +44,8 @@ import lombok.ast.printer.StructureFormatter;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import com.google.common.collect.Lists;
+
 @RunWith(RunForEachFileInDirRunner.class)
 public class PositionTest extends RunForEachFileInDirRunner.SourceFileBasedTester {
 	@Override
@@ -70,4 +78,109 @@ public class PositionTest extends RunForEachFileInDirRunner.SourceFileBasedTeste
 			throw e;
 		}
 	}
+	
+	@Test
+	public void testDeferredBodyPositionsMatchFullParse(Source source) throws IOException {
+		source.parseCompilationUnit();
+		StructureFormatter full = StructureFormatter.formatterWithPositions();
+		source.getNodes().get(0).accept(new SourcePrinter(full));
+		
+		Source outline = new Source(source.getRawInput(), source.getName());
+		outline.parseCompilationUnitOutline();
+		StructureFormatter deferred = StructureFormatter.formatterWithPositions();
+		outline.getNodes().get(0).accept(new SourcePrinter(deferred));
+		
+		assertEquals(full.finish(), deferred.finish());
+	}
+	
+	@Test
+	public void testWithoutStructuresPositionsMatchFullParse(Source source) throws IOException {
+		source.parseCompilationUnit();
+		StructureFormatter full = StructureFormatter.formatterWithPositions();
+		source.getNodes().get(0).accept(new SourcePrinter(full));
+		
+		Source withoutStructures = new Source(source.getRawInput(), source.getName());
+		withoutStructures.parseCompilationUnitWithoutStructures();
+		StructureFormatter lean = StructureFormatter.formatterWithPositions();
+		withoutStructures.getNodes().get(0).accept(new SourcePrinter(lean));
+		
+		assertEquals(full.finish(), lean.finish());
+	}
+	
+	@Test
+	public void testBinaryRoundTripPreservesTree(Source source) throws IOException {
+		source.parseCompilationUnit();
+		StructureFormatter original = StructureFormatter.formatterWithPositions();
+		source.getNodes().get(0).accept(new SourcePrinter(original));
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryAstWriter writer = new BinaryAstWriter(bytes);
+		writer.write(source.getNodes().get(0));
+		writer.close();
+		
+		BinaryAstReader reader = new BinaryAstReader(new ByteArrayInputStream(bytes.toByteArray()));
+		Node read = reader.read();
+		assertNull(reader.read());
+		StructureFormatter roundTripped = StructureFormatter.formatterWithPositions();
+		read.accept(new SourcePrinter(roundTripped));
+		
+		assertEquals(original.finish(), roundTripped.finish());
+	}
+	
+	@Test
+	public void testStoreMatchesTree(Source source) throws IOException {
+		source.parseCompilationUnit();
+		Node node = source.getNodes().get(0);
+		final List<String> expected = Lists.newArrayList();
+		final List<Node> nodes = Lists.newArrayList();
+		node.accept(new ForwardingAstVisitor() {
+			@Override public boolean visitNode(Node n) {
+				expected.add(n.getClass().getName() + n.getPosition());
+				nodes.add(n);
+				return false;
+			}
+		});
+		
+		File file = File.createTempFile("lombok.ast", ".store");
+		try {
+			AstStore.Builder builder = new AstStore.Builder(file);
+			builder.add(source.getName(), node);
+			builder.close();
+			
+			AstStore store = AstStore.open(file);
+			final List<String> actual = Lists.newArrayList();
+			final List<AstStore.Cursor> cursors = Lists.newArrayList();
+			store.root(0).accept(new AstStore.Visitor() {
+				@Override public boolean visit(AstStore.Cursor cursor) {
+					actual.add(cursor.getKind() + cursor.getPosition());
+					cursors.add(cursor.copy());
+					return false;
+				}
+				
+				@Override public void endVisit(AstStore.Cursor cursor) {
+				}
+			});
+			assertEquals(expected, actual);
+			
+			StructureFormatter original = StructureFormatter.formatterWithPositions();
+			node.accept(new SourcePrinter(original));
+			StructureFormatter materialized = StructureFormatter.formatterWithPositions();
+			store.root(0).materialize().accept(new SourcePrinter(materialized));
+			assertEquals(original.finish(), materialized.finish());
+			
+			/* The last node in visiting order is usually deep and not a first child, so this covers the walk down from the root. */
+			for (int i : new int[] {nodes.size() / 2, nodes.size() - 1}) {
+				StructureFormatter originalInner = StructureFormatter.formatterWithPositions();
+				nodes.get(i).accept(new SourcePrinter(originalInner));
+				StructureFormatter materializedInner = StructureFormatter.formatterWithPositions();
+				Node inner = cursors.get(i).materialize();
+				assertEquals(nodes.get(i).getClass(), inner.getClass());
+				inner.accept(new SourcePrinter(materializedInner));
+				assertEquals(originalInner.finish(), materializedInner.finish());
+			}
+			store.close();
+		} finally {
+			file.delete();
+		}
+	}
 }
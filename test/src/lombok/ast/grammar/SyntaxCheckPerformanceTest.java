@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+
+import lombok.ast.ForwardingAstVisitor;
+import lombok.ast.Node;
+import lombok.ast.grammar.RunForEachFileInDirRunner.DirDescriptor;
+import lombok.ast.syntaxChecks.SyntacticValidityVisitor;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Measures the throughput of running the {@link SyntacticValidityVisitor} over complete trees.
+ * Only runs if the {@code lombok.ast.test.extended} system property is set; results are printed if {@code lombok.ast.test.verbose} is set.
+ */
+@RunWith(RunForEachFileInDirRunner.class)
+public class SyntaxCheckPerformanceTest extends RunForEachFileInDirRunner.SourceFileBasedTester {
+	private static final int REPS = 200;
+	private static final boolean VERBOSE = System.getProperty("lombok.ast.test.verbose") != null;
+	private static final boolean EXTENDED = System.getProperty("lombok.ast.test.extended") != null;
+	private static long nodesTotal, nanosTotal;
+	
+	@AfterClass
+	public void summary() {
+		if (VERBOSE && nanosTotal > 0) {
+			System.out.printf("[%30s] nodes: %9d validation: %6d ms (%8.0f nodes/ms)\n",
+					"*** TOTALS ***", nodesTotal, nanosTotal / 1000000, nodesTotal * 1000000.0 / nanosTotal);
+		}
+	}
+	
+	@Override protected Collection<DirDescriptor> getDirDescriptors() {
+		List<DirDescriptor> descriptors = Lists.newArrayList();
+		descriptors.add(DirDescriptor.of(new File("test/resources/idempotency"), true));
+		descriptors.add(DirDescriptor.of(new File("test/resources/alias"), true));
+		descriptors.add(DirDescriptor.of(new File("test/resources/special"), true));
+		if (VERBOSE) {
+			descriptors.add(DirDescriptor.of(new File("test/resources/performance"), true));
+		}
+		return descriptors;
+	}
+	
+	@Test
+	public boolean testValidationThroughput(Source source) {
+		if (!EXTENDED) return false;
+		source.parseCompilationUnit();
+		if (!source.getProblems().isEmpty()) {
+			fail(source.getProblems().get(0).toString());
+		}
+		
+		Node node = source.getNodes().get(0);
+		final int[] nodes = new int[1];
+		node.accept(new ForwardingAstVisitor() {
+			@Override public boolean visitNode(Node node) {
+				nodes[0]++;
+				return false;
+			}
+		});
+		
+		node.accept(new SyntacticValidityVisitor(true));
+		long taken = System.nanoTime();
+		for (int i = 0; i < REPS; i++) {
+			node.accept(new SyntacticValidityVisitor(true));
+		}
+		taken = System.nanoTime() - taken;
+		nodesTotal += (long) nodes[0] * REPS;
+		nanosTotal += taken;
+		
+		if (VERBOSE) {
+			String fn = source.getName();
+			int sep = fn.lastIndexOf('/');
+			if (sep != -1) fn = fn.substring(sep + 1);
+			System.out.printf("[%30s] nodes: %9d validation: %6d ms (%8.0f nodes/ms)\n",
+					fn, (long) nodes[0] * REPS, taken / 1000000, (double) nodes[0] * REPS * 1000000.0 / taken);
+		}
+		
+		return true;
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2011 Reinier Zwitserloot, Roel Spilker and Robbert Jan Grootjans.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package lombok.ast.grammar;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.ast.ForwardingAstVisitor;
+import lombok.ast.Message;
+import lombok.ast.Node;
+import lombok.ast.syntaxChecks.MessageKey;
+import lombok.ast.syntaxChecks.SyntacticValidityVisitor;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class UnreachableStatementsTest {
+	@Test
+	public void testThrow() {
+		assertUnreachable("throw new RuntimeException(); a();", "a();");
+		assertUnreachable("{ throw new RuntimeException(); } a();", "a();");
+	}
+	
+	@Test
+	public void testIfWithElse() {
+		assertUnreachable("if (x > 0) return; else throw new RuntimeException(); a();", "a();");
+		assertUnreachable("if (x > 0) { if (x > 1) return; else return; } else { throw new RuntimeException(); } a();", "a();");
+		assertUnreachable("if (x > 0) return; else if (x < 0) return; else throw new RuntimeException(); a();", "a();");
+		assertUnreachable("if (x > 0) return; else if (x < 0) return; a();");
+		assertUnreachable("if (x > 0) return; else a(); b();");
+	}
+	
+	@Test
+	public void testIfWithoutElse() {
+		assertUnreachable("if (x > 0) return; a();");
+		assertUnreachable("if (x > 0) throw new RuntimeException(); a();");
+		assertUnreachable("if (x > 0) { return; } a();");
+	}
+	
+	@Test
+	public void testLabelledBreakOutOfLoop() {
+		assertUnreachable("outer: while (true) { for (;;) { break outer; } } a();");
+		assertUnreachable("outer: for (;;) { while (true) { break outer; } } a();");
+		assertUnreachable("outer: while (true) { break outer; b(); }", "b();");
+	}
+	
+	@Test
+	public void testSwitchWithoutDefault() {
+		assertUnreachable("switch (x) { case 1: return; } a();");
+		assertUnreachable("switch (x) { case 1: throw new RuntimeException(); case 2: return; } a();");
+		assertUnreachable("switch (x) { case 1: return; b(); } a();", "b();");
+	}
+	
+	@Test
+	public void testSwitchWithDefault() {
+		assertUnreachable("switch (x) { case 1: return; default: throw new RuntimeException(); } a();", "a();");
+		assertUnreachable("switch (x) { case 1: break; default: return; } a();");
+		assertUnreachable("switch (x) { case 1: while (true) { break; } return; default: return; } a();", "a();");
+		assertUnreachable("out: switch (x) { case 1: while (true) { break out; } default: return; } a();");
+	}
+	
+	@Test
+	public void testTryFinally() {
+		assertUnreachable("try { a(); } finally { b(); } c();");
+		assertUnreachable("try { return; a(); } finally { b(); }", "a();");
+		assertUnreachable("try { a(); } finally { return; b(); }", "b();");
+		assertUnreachable("switch (x) { case 1: try { break; } finally { a(); } default: return; } b();");
+	}
+	
+	@Test
+	public void testWhileTrueWithBreak() {
+		assertUnreachable("while (true) { if (x > 0) break; } a();");
+		assertUnreachable("while (true) { break; } a();");
+		assertUnreachable("do { break; } while (true); a();");
+		assertUnreachable("while (true) { break; a(); }", "a();");
+	}
+	
+	private static void assertUnreachable(String body, String... expected) {
+		Source source = new Source("class Test {\n\tvoid test(int x) {\n\t\t" + body + "\n\t}\n}\n", "Test.java");
+		source.parseCompilationUnit();
+		if (!source.getProblems().isEmpty()) fail(source.getProblems().get(0).toString());
+		
+		final String raw = source.getRawInput();
+		final List<String> found = Lists.newArrayList();
+		Node root = source.getNodes().get(0);
+		root.accept(new SyntacticValidityVisitor(true));
+		root.accept(new ForwardingAstVisitor() {
+			@Override public boolean visitNode(Node node) {
+				for (Message m : node.getMessages()) {
+					if (m.getKey() == MessageKey.STATEMENT_UNREACHABLE) found.add(raw.substring(node.getPosition().getStart(), node.getPosition().getEnd()));
+				}
+				return false;
+			}
+		});
+		
+		List<String> wanted = expected.length == 0 ? Collections.<String>emptyList() : Arrays.asList(expected);
+		assertEquals(body, wanted, found);
+	}
+}